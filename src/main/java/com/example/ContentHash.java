@@ -0,0 +1,49 @@
+package com.example;
+
+/**
+ * A 64 bit FNV-1a hash over the parts that make up the content of a representation.
+ * <p>
+ * The hash is used for strong entity tags, which are computed once when a representation is stored instead
+ * of serializing the representation and using {@code String.hashCode()} on every request. The parts are
+ * separated in the hash, thus {@code ("ab", "c")} and {@code ("a", "bc")} give different results.
+ */
+public final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    private static final int SEPARATOR = 0x1f;
+    private static final int NULL_MARKER = 0x00;
+
+    private ContentHash() {
+        // reduced constructor scope.
+    }
+
+    /**
+     * hashes the string representation of the parts in the given order
+     *
+     * @param parts the content, where null is allowed
+     * @return the hash as a 16 character hexadecimal string
+     */
+    public static String of(Object... parts) {
+        long hash = OFFSET_BASIS;
+        for (Object part : parts) {
+            if (part == null) {
+                hash = mix(hash, NULL_MARKER);
+            } else {
+                String s = part.toString();
+                for (int i = 0; i < s.length(); i++) {
+                    char c = s.charAt(i);
+                    hash = mix(hash, c >>> 8);
+                    hash = mix(hash, c & 0xff);
+                }
+            }
+            hash = mix(hash, SEPARATOR);
+        }
+        String hex = Long.toHexString(hash);
+        return hex.length() == 16 ? hex : "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    private static long mix(long hash, int octet) {
+        return (hash ^ octet) * PRIME;
+    }
+}
@@ -0,0 +1,170 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A write pipeline in front of a {@link RepresentationContainer}, which writes changes made concurrently
+ * as one batch, thus the batch shares a single flush of the store behind the container.
+ * <p>
+ * Changes are queued and a single writer takes every queued change up to the maximum batch size. If the
+ * batch is not full the writer waits up to the maximum linger time for more changes, which with a linger
+ * time of zero means that batches are formed only by changes arriving while the previous batch is written.
+ * The future of a change completes when the batch containing it is durable and visible, with false if the
+ * change was conditional and was rejected, as the representation had been changed in between.
+ * <p>
+ * The size of every batch and the time from a change is submitted until it is durable is recorded in
+ * histograms.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of representation
+ */
+public class GroupCommit<K extends Comparable<? super K>, V> implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(GroupCommit.class.getName());
+
+    private final RepresentationContainer<K, V> container;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final BlockingQueue<Pending<K, V>> queue = new LinkedBlockingQueue<>();
+    private final Histogram batchSizes = new Histogram();
+    private final Histogram latencies = new Histogram();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * @param container the container the changes are written to
+     * @param maxBatchSize the maximum number of changes written together
+     * @param maxLinger the maximum time to wait for more changes before writing a batch, which is not full
+     * @param unit the unit of the linger time
+     */
+    public GroupCommit(RepresentationContainer<K, V> container, int maxBatchSize, long maxLinger, TimeUnit unit) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("The maximum batch size must be positive, was " + maxBatchSize);
+        }
+        this.container = container;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = unit.toNanos(maxLinger);
+        this.writer = new Thread(this::run, "group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * @param change the change to write
+     * @return the future completing with true when the change is durable and visible or with false when the
+     * change was rejected
+     */
+    public CompletableFuture<Boolean> submit(RepresentationContainer.Change<K, V> change) {
+        Pending<K, V> pending = new Pending<>(change);
+        if (!running) {
+            pending.future.completeExceptionally(new IllegalStateException("The writes have been closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+
+    /**
+     * @return the number of changes written per batch
+     */
+    public Histogram getBatchSizes() {
+        return batchSizes;
+    }
+
+    /**
+     * @return the time in microseconds from a change is submitted until it is durable and visible
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * writes the queued changes and stops the writer
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending<K, V> late;
+        while ((late = queue.poll()) != null) {
+            late.future.completeExceptionally(new IllegalStateException("The writes have been closed"));
+        }
+    }
+
+    private void run() {
+        List<Pending<K, V>> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending<K, V> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long deadline = System.nanoTime() + maxLingerNanos;
+                while (batch.size() < maxBatchSize && deadline - System.nanoTime() > 0) {
+                    Pending<K, V> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Pending<K, V>> batch) {
+        List<RepresentationContainer.Change<K, V>> changes = new ArrayList<>(batch.size());
+        for (Pending<K, V> pending : batch) {
+            changes.add(pending.change);
+        }
+        List<RepresentationContainer.Change<K, V>> rejected;
+        try {
+            rejected = container.write(changes);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Could not write a batch of " + batch.size() + " changes", e);
+            for (Pending<K, V> pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+            return;
+        }
+        long now = System.nanoTime();
+        batchSizes.record(batch.size());
+        for (Pending<K, V> pending : batch) {
+            latencies.record(TimeUnit.NANOSECONDS.toMicros(now - pending.submitted));
+            pending.future.complete(!rejected.contains(pending.change));
+        }
+    }
+
+    /**
+     * A change waiting to be written.
+     */
+    private static final class Pending<K, V> {
+        private final RepresentationContainer.Change<K, V> change;
+        private final long submitted = System.nanoTime();
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Pending(RepresentationContainer.Change<K, V> change) {
+            this.change = change;
+        }
+    }
+}
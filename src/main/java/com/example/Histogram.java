@@ -0,0 +1,88 @@
+package com.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values using buckets of powers of two.
+ * <p>
+ * A value is counted in the bucket of its highest set bit, thus a percentile is reported as the upper bound
+ * of the bucket it falls in and is at most twice the actual value. This is precise enough to follow e.g.
+ * batch sizes and latencies and costs an increment per recorded value.
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public Histogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param value the value to count, negative values are counted as 0
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets[BUCKETS - Long.numberOfLeadingZeros(v) - (v == 0 ? 0 : 1)].increment();
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile the percentile between 0 and 100
+     * @return the upper bound of the bucket containing the percentile or 0 if nothing is recorded
+     */
+    public long getPercentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i].sum();
+            if (seen >= Math.max(rank, 1)) {
+                return Math.min(i == 0 ? 1 : (1L << i + 1) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * @return the count, mean, max and the 50, 90, 99 and 99.9 percentiles
+     */
+    public Map<String, Number> summary() {
+        Map<String, Number> summary = new LinkedHashMap<>();
+        summary.put("count", getCount());
+        summary.put("mean", getMean());
+        summary.put("max", getMax());
+        summary.put("p50", getPercentile(50));
+        summary.put("p90", getPercentile(90));
+        summary.put("p99", getPercentile(99));
+        summary.put("p999", getPercentile(99.9));
+        return summary;
+    }
+}
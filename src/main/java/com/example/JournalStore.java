@@ -0,0 +1,441 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * A {@link RepresentationStore} appending every change to a memory-mapped journal file.
+ * <p>
+ * The journal starts with a header followed by records, each record is the length and the CRC32 checksum of
+ * its payload followed by the payload, which is the operation, the key and for an added representation the
+ * representation itself. The records are forced to disk on flush, which the container does once per write
+ * before the changes of the write are made visible, thus a number of changes written together share one force.
+ * A write, which fails before it is flushed, is rolled back to the end of the journal at the last flush, thus the
+ * records of a failed write are not replayed.
+ * <p>
+ * When the journal is replayed the records are read until the end of the journal or until a record is found,
+ * which is incomplete or has a wrong checksum, e.g. written while the process stopped. Later records are not
+ * trusted and are overwritten by the next change. The replay also finds the end of the journal, thus the journal
+ * is read once when it is opened, and it is only read without a replay if it is changed before it is replayed.
+ * <p>
+ * The journal grows with every change and is therefore rewritten to a snapshot of the current representations
+ * when it contains more than twice as many records as representations, the snapshot is written next to the
+ * journal and is moved in place of the journal when it is complete, after which the directory is forced, thus the
+ * move itself is durable.
+ * <p>
+ * A mapping cannot be larger than 2 GiB, thus the journal is mapped one window at a time. The window grows with
+ * the journal, and when it cannot grow any further it moves along the file to where the next record is written,
+ * thus the journal is not limited by the size of a mapping.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of representation
+ */
+public class JournalStore<K, V> implements RepresentationStore<K, V> {
+
+    private static final Logger LOGGER = Logger.getLogger(JournalStore.class.getName());
+    private static final int MAGIC = 0x4a524e4c;
+    private static final int VERSION = 1;
+    private static final int HEADER = 8;
+    private static final int RECORD_HEADER = 8;
+    private static final byte ADDED = 1;
+    private static final byte REMOVED = 2;
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private final Path path;
+    private final Codec<K> keys;
+    private final Codec<V> values;
+    private final CRC32 crc = new CRC32();
+    private final long window;
+    private FileChannel channel;
+    private MappedByteBuffer journal;
+    private long base;
+    private int records;
+    private boolean dirty;
+    private long flushed;
+    private int flushedRecords;
+    private boolean positioned;
+
+    /**
+     * opens the journal, which is created if it does not exist
+     *
+     * @param path the journal file
+     * @param keys the encoding of keys
+     * @param values the encoding of representations
+     */
+    public JournalStore(Path path, Codec<K> keys, Codec<V> values) {
+        this(path, keys, values, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param path the journal file
+     * @param keys the encoding of keys
+     * @param values the encoding of representations
+     * @param window the largest number of bytes of the journal mapped at a time
+     */
+    JournalStore(Path path, Codec<K> keys, Codec<V> values, int window) {
+        this.path = path;
+        this.keys = keys;
+        this.values = values;
+        this.window = window;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open journal " + path, e);
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(0, Math.max(INITIAL_CAPACITY, channel.size()));
+        if (journal.getInt(0) == 0) {
+            journal.putInt(0, MAGIC).putInt(4, VERSION);
+            journal.force();
+        } else if (journal.getInt(0) != MAGIC || journal.getInt(4) != VERSION) {
+            throw new IOException("Not a journal " + path);
+        }
+        journal.position(HEADER);
+    }
+
+    /**
+     * maps the window of the journal starting at the offset, the window is at most as large as allowed
+     */
+    private void map(long offset, long capacity) throws IOException {
+        journal = channel.map(FileChannel.MapMode.READ_WRITE, offset, Math.min(capacity, window));
+        base = offset;
+    }
+
+    @Override
+    public void replay(BiConsumer<? super K, ? super V> consumer) {
+        try {
+            read(consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replay journal " + path, e);
+        }
+    }
+
+    /**
+     * finds the end of the journal, unless the journal has been replayed, before it is changed
+     */
+    private void position() {
+        if (!positioned) {
+            try {
+                read(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read journal " + path, e);
+            }
+        }
+    }
+
+    /**
+     * reads the journal from the start and leaves the position after the last trusted record
+     *
+     * @param consumer the receiver of the records or null if the records are counted only
+     */
+    private void read(BiConsumer<? super K, ? super V> consumer) throws IOException {
+        if (base != 0) {
+            map(0, journal.capacity());
+        }
+        journal.position(HEADER);
+        records = 0;
+        while (true) {
+            int start = journal.position();
+            if (journal.remaining() < RECORD_HEADER) {
+                if (base + journal.capacity() >= channel.size()) {
+                    break;
+                }
+                map(base + start, journal.capacity());
+                continue;
+            }
+            int length = journal.getInt();
+            int checksum = journal.getInt();
+            if (length <= 0 || length > window - RECORD_HEADER || base + start + RECORD_HEADER + length > channel.size()) {
+                journal.position(start);
+                break;
+            }
+            if (length > journal.remaining()) {
+                map(base + start, Math.max(journal.capacity(), RECORD_HEADER + (long) length));
+                continue;
+            }
+            byte[] payload = new byte[length];
+            journal.get(payload);
+            if (checksum != checksum(payload)) {
+                LOGGER.log(Level.WARNING, "Journal {0} has a broken record at {1}, ignoring the rest", new Object[]{path, start});
+                journal.position(start);
+                break;
+            }
+            if (consumer != null) {
+                ByteBuffer record = ByteBuffer.wrap(payload);
+                byte operation = record.get();
+                byte[] key = new byte[record.getInt()];
+                record.get(key);
+                byte[] value = new byte[record.remaining()];
+                record.get(value);
+                consumer.accept(keys.decode(key), operation == ADDED ? values.decode(value) : null);
+            }
+            records++;
+        }
+        clearFrom(journal.position());
+        mark();
+        positioned = true;
+    }
+
+    @Override
+    public void added(K key, V representation) {
+        append(ADDED, keys.encode(key), values.encode(representation));
+    }
+
+    @Override
+    public void removed(K key) {
+        append(REMOVED, keys.encode(key), new byte[0]);
+    }
+
+    @Override
+    public boolean needsCompaction(int size) {
+        position();
+        return records > MIN_COMPACTION_RECORDS && records > 2 * size;
+    }
+
+    @Override
+    public void compact(Iterable<Map.Entry<K, V>> representations) {
+        Path snapshot = path.resolveSibling(path.getFileName() + ".snapshot");
+        position();
+        try {
+            int written = 0;
+            long size = HEADER;
+            try (FileChannel out = FileChannel.open(snapshot, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                out.write(header);
+                for (Map.Entry<K, V> entry : representations) {
+                    ByteBuffer record = record(ADDED, keys.encode(entry.getKey()), values.encode(entry.getValue()));
+                    size += record.remaining();
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                    written++;
+                }
+                out.force(true);
+            }
+            long end = base + journal.position();
+            int journaled = records;
+            boolean moved = false;
+            close();
+            try {
+                Files.move(snapshot, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                moved = true;
+                forceDirectory();
+            } finally {
+                // the journal is opened again even if the snapshot was not moved, thus later changes are kept
+                open();
+                seek(moved ? size : end);
+                records = moved ? written : journaled;
+                mark();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact journal " + path, e);
+        }
+    }
+
+    /**
+     * forces the directory holding the journal, which makes the move of the snapshot durable, where a platform
+     * that cannot open a directory, e.g. Windows, is left to make the move durable itself
+     */
+    private void forceDirectory() {
+        Path directory = path.toAbsolutePath().getParent();
+        try (FileChannel folder = FileChannel.open(directory, StandardOpenOption.READ)) {
+            folder.force(true);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not force the directory of journal " + path, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            journal.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close journal " + path, e);
+        }
+    }
+
+    /**
+     * @return the number of records in the journal
+     */
+    int getRecords() {
+        position();
+        return records;
+    }
+
+    /**
+     * maps the window, where the next record is written at the end of the journal
+     */
+    private void seek(long end) throws IOException {
+        long capacity = Math.max(INITIAL_CAPACITY, 2 * end);
+        if (capacity <= window) {
+            map(0, capacity);
+        } else {
+            map(end, INITIAL_CAPACITY);
+        }
+        journal.position((int) (end - base));
+        clearFrom(journal.position());
+    }
+
+    private void append(byte operation, byte[] key, byte[] value) {
+        position();
+        ByteBuffer record = record(operation, key, value);
+        int needed = record.remaining() + RECORD_HEADER;
+        if (needed > window) {
+            throw new IllegalArgumentException("The record of " + needed + " bytes is larger than the journal window");
+        }
+        try {
+            if (needed > journal.remaining()) {
+                long end = base + journal.position();
+                journal.force();
+                long capacity = Math.max(2L * journal.capacity(), end - base + needed);
+                if (capacity <= window) {
+                    map(base, capacity);
+                } else {
+                    map(end, Math.max(journal.capacity(), needed));
+                }
+                journal.position((int) (end - base));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not extend journal " + path, e);
+        }
+        journal.put(record);
+        clearFrom(journal.position());
+        dirty = true;
+        records++;
+    }
+
+    @Override
+    public void flush() {
+        if (dirty) {
+            journal.force();
+            dirty = false;
+            mark();
+        }
+    }
+
+    @Override
+    public void rollback() {
+        if (dirty) {
+            try {
+                seek(flushed);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not roll back journal " + path, e);
+            }
+            journal.force();
+            records = flushedRecords;
+            dirty = false;
+        }
+    }
+
+    /**
+     * remembers the end of the journal as it is durable, which a rollback returns to
+     */
+    private void mark() {
+        flushed = base + journal.position();
+        flushedRecords = records;
+    }
+
+    private ByteBuffer record(byte operation, byte[] key, byte[] value) {
+        int length = 1 + 4 + key.length + value.length;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + length);
+        record.putInt(length).putInt(0).put(operation).putInt(key.length).put(key).put(value);
+        record.putInt(4, checksum(record.array(), RECORD_HEADER, length));
+        record.flip();
+        return record;
+    }
+
+    private int checksum(byte[] payload) {
+        return checksum(payload, 0, payload.length);
+    }
+
+    private int checksum(byte[] bytes, int offset, int length) {
+        crc.reset();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private void clearFrom(int position) {
+        if (journal.capacity() - position >= RECORD_HEADER) {
+            journal.putLong(position, 0L);
+        }
+    }
+
+    /**
+     * The encoding of keys and representations in the journal.
+     *
+     * @param <T> the type encoded
+     */
+    public interface Codec<T> {
+
+        byte[] encode(T value);
+
+        T decode(byte[] bytes);
+
+        /**
+         * @return the UTF-8 encoding of strings
+         */
+        static Codec<String> utf8() {
+            return new Codec<String>() {
+                @Override
+                public byte[] encode(String value) {
+                    return value.getBytes(StandardCharsets.UTF_8);
+                }
+
+                @Override
+                public String decode(byte[] bytes) {
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+            };
+        }
+
+        /**
+         * @param reader the reader of the representation
+         * @param writer the writer of the representation
+         * @return the JSON encoding of a representation
+         */
+        static <T> Codec<T> json(ObjectReader reader, ObjectWriter writer) {
+            return new Codec<T>() {
+                @Override
+                public byte[] encode(T value) {
+                    try {
+                        return writer.writeValueAsBytes(value);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+
+                @Override
+                public T decode(byte[] bytes) {
+                    try {
+                        return reader.readValue(bytes);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+        }
+    }
+}
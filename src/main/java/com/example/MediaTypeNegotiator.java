@@ -0,0 +1,173 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the producer of a representation from the {@code Accept} header of a request, where each producer is
+ * registered for a media type including its parameters e.g. {@code application/hal+json;concept=greeting;v=3}.
+ * <p>
+ * The header is parsed into media ranges ignoring whitespace, a producer gets the quality of the most specific
+ * range matching its media type, where a range matches if the type is the same and every parameter of the range
+ * has the same value for the producer. The producer with the highest quality is chosen, on equal quality a
+ * producer registered with exactly the parameters of the range is preferred and otherwise the first registered.
+ * Ranges with wildcards, such as {@code *}{@code /*}, do not choose a producer, as the producers are concepts and
+ * versions, which a consumer must ask for.
+ * <p>
+ * The decision is kept per distinct header in a small cache, thus a known header costs a single map lookup. The
+ * cache is emptied when it is full. Producers are registered before the negotiator is used.
+ *
+ * @param <T> the type of producer
+ */
+public class MediaTypeNegotiator<T> {
+
+    private static final int CACHE_SIZE = 256;
+
+    private final List<MediaRange> types = new ArrayList<>();
+    private final List<T> producers = new ArrayList<>();
+    private final Map<String, Optional<T>> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * @param mediaType the media type including parameters produced by the producer
+     * @param producer the producer
+     * @return this negotiator
+     */
+    public MediaTypeNegotiator<T> register(String mediaType, T producer) {
+        MediaRange type = MediaRange.parse(mediaType);
+        if (type == null || type.isWildcard()) {
+            throw new IllegalArgumentException("Not a concrete media type " + mediaType);
+        }
+        types.add(type);
+        producers.add(producer);
+        decisions.clear();
+        return this;
+    }
+
+    /**
+     * @param accept the {@code Accept} header of the request
+     * @return the preferred producer or null if no producer is acceptable
+     */
+    public T negotiate(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return null;
+        }
+        Optional<T> decision = decisions.get(accept);
+        if (decision == null) {
+            decision = Optional.ofNullable(decide(MediaRange.parseAll(accept)));
+            if (decisions.size() >= CACHE_SIZE) {
+                decisions.clear();
+            }
+            decisions.put(accept, decision);
+        }
+        return decision.orElse(null);
+    }
+
+    private T decide(List<MediaRange> ranges) {
+        int best = -1;
+        double bestQuality = 0;
+        boolean bestExact = false;
+        for (int i = 0; i < types.size(); i++) {
+            MediaRange type = types.get(i);
+            MediaRange match = null;
+            for (MediaRange range : ranges) {
+                if (range.matches(type) && (match == null || range.parameters.size() > match.parameters.size())) {
+                    match = range;
+                }
+            }
+            if (match == null || match.quality <= 0) {
+                continue;
+            }
+            boolean exact = match.parameters.size() == type.parameters.size();
+            if (match.quality > bestQuality || match.quality == bestQuality && exact && !bestExact) {
+                best = i;
+                bestQuality = match.quality;
+                bestExact = exact;
+            }
+        }
+        return best < 0 ? null : producers.get(best);
+    }
+
+    /**
+     * A media type or media range with its parameters and quality.
+     */
+    private static final class MediaRange {
+        private final String type;
+        private final String subtype;
+        private final Map<String, String> parameters;
+        private final double quality;
+
+        private MediaRange(String type, String subtype, Map<String, String> parameters, double quality) {
+            this.type = type;
+            this.subtype = subtype;
+            this.parameters = parameters;
+            this.quality = quality;
+        }
+
+        static List<MediaRange> parseAll(String accept) {
+            List<MediaRange> ranges = new ArrayList<>();
+            for (String range : accept.split(",")) {
+                MediaRange parsed = parse(range);
+                if (parsed != null && !parsed.isWildcard()) {
+                    ranges.add(parsed);
+                }
+            }
+            return ranges;
+        }
+
+        /**
+         * @return the media range or null if it is malformed
+         */
+        static MediaRange parse(String range) {
+            String[] parts = range.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            int slash = name.indexOf('/');
+            if (slash <= 0 || slash == name.length() - 1) {
+                return null;
+            }
+            Map<String, String> parameters = new HashMap<>();
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                int equals = parts[i].indexOf('=');
+                if (equals < 0) {
+                    return null;
+                }
+                String key = parts[i].substring(0, equals).trim().toLowerCase(Locale.ROOT);
+                String value = parts[i].substring(equals + 1).trim();
+                if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                if ("q".equals(key)) {
+                    quality = quality(value);
+                } else {
+                    parameters.put(key, value);
+                }
+            }
+            return new MediaRange(name.substring(0, slash).trim(), name.substring(slash + 1).trim(),
+                    parameters.isEmpty() ? Collections.emptyMap() : parameters, quality);
+        }
+
+        private static double quality(String value) {
+            try {
+                double quality = Double.parseDouble(value);
+                return quality >= 0 && quality <= 1 ? quality : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        boolean isWildcard() {
+            return "*".equals(type) || "*".equals(subtype);
+        }
+
+        boolean matches(MediaRange mediaType) {
+            return type.equals(mediaType.type) && subtype.equals(mediaType.subtype)
+                    && mediaType.parameters.entrySet().containsAll(parameters.entrySet());
+        }
+    }
+}
@@ -1,21 +1,127 @@
 package com.example;
 
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * A container for immutable representations of a given type.
+ * <p>
+ * Every representation is stored with an entity tag, which is derived from the content of the
+ * representation once, when it is stored, and is reused by every conditional request.
+ * <p>
+ * Alongside each representation the container can hold pre-serialized variants of that representation,
+ * e.g. one per media-type version. The variants are computed lazily on first request and are discarded
+ * whenever the representation is replaced or removed or the container is marked as changed, thus a read
+ * of an unchanged representation is a map lookup.
+ * <p>
+ * Documents rendered from all representations, e.g. a list, are kept per version of the container and are
+ * reused until the next change of the container, thus reading an unchanged list does not depend on its size.
+ * <p>
+ * The representations are kept in the natural order of their keys, which allows them to be read in pages
+ * addressed by the last key of the previous page. Such a page is stable when representations are added
+ * or removed in between reading pages.
+ * <p>
+ * Secondary indexes can be declared on values extracted from the representations, e.g. a language, or on the
+ * words of a text for searching. An index is maintained as part of every change and holds the keys of the
+ * representations per value or word, thus reading the representations having a value costs the number of
+ * matches and not the size of the container.
+ * <p>
+ * For very large numbers of representations the container can keep each representation encoded, e.g. in a few
+ * bytes referring to a {@link StringDictionary} of repeated strings, instead of as objects. A representation
+ * is then decoded, when it is read.
+ * <p>
+ * A container can be backed by a {@link RepresentationStore}, which is replayed when the container is created
+ * and is told about every change before the change is visible to readers. Changes are made one at a time,
+ * whereas reads never wait for a change or the store.
+ * <p>
+ * A change can be made conditional on the entity tag of the representation it is based on, thus the change
+ * is rejected if the representation has been changed since it was read, instead of silently overwriting the
+ * change made in between. The tag is compared as part of the write, including the changes written earlier
+ * in the same write.
  *
  * @param <K> the type of the key
  * @param <V> the type of representation
  */
-public class RepresentationContainer<K, V> {
+public class RepresentationContainer<K extends Comparable<? super K>, V> {
 
-    private Map<K, V> representations = new ConcurrentHashMap<>();
-    private int chCode = 111;
+    private static final String ENCODING = ";encoding=";
+
+    private ConcurrentNavigableMap<K, Entry<V>> representations = new ConcurrentSkipListMap<>();
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final Map<String, Index<K, V>> indexes = new ConcurrentHashMap<>();
+    private final Function<? super V, String> tagger;
+    private final RepresentationStore<K, V> store;
+    private final JournalStore.Codec<V> memory;
+    private volatile int chCode = 111;
+    private volatile int size;
+
+    /**
+     * creates a container where the entity tag of a representation is derived from its hashCode
+     */
+    public RepresentationContainer() {
+        this(representation -> Integer.toHexString(representation.hashCode()));
+    }
+
+    /**
+     * creates a container where the entity tag of a representation is derived by the tagger
+     *
+     * @param tagger the function computing a strong entity tag from the content of a representation
+     */
+    public RepresentationContainer(Function<? super V, String> tagger) {
+        this(tagger, RepresentationStore.none());
+    }
+
+    /**
+     * creates a container holding the representations found in the store and storing every change in it
+     *
+     * @param tagger the function computing a strong entity tag from the content of a representation
+     * @param store the persistence of the representations
+     */
+    public RepresentationContainer(Function<? super V, String> tagger, RepresentationStore<K, V> store) {
+        this(tagger, store, null);
+    }
+
+    /**
+     * creates a container keeping the representations encoded in memory, which is for very large numbers of
+     * representations, where the encoding is far smaller than the objects of a representation. A representation
+     * is decoded every time it is read, thus reading the pre-serialized variants does not decode it.
+     *
+     * @param tagger the function computing a strong entity tag from the content of a representation
+     * @param store the persistence of the representations
+     * @param memory the encoding of the representations in memory or null to keep the representations as objects
+     */
+    public RepresentationContainer(Function<? super V, String> tagger, RepresentationStore<K, V> store,
+            JournalStore.Codec<V> memory) {
+        this.tagger = tagger;
+        this.store = store;
+        this.memory = memory;
+        store.replay((key, representation) -> {
+            if (representation == null) {
+                removeEntry(key);
+            } else {
+                putEntry(key, entry(representation));
+            }
+        });
+    }
 
     /**
      * retrieves the value object V on the basis of the key K
@@ -24,7 +130,220 @@ public class RepresentationContainer<K, V> {
      * @return the representation object
      */
     public V get(K key) {
-        return representations.get(key);
+        Entry<V> entry = representations.get(key);
+        return entry == null ? null : value(entry);
+    }
+
+    /**
+     * retrieves the representation and its entity tag as they were stored together, which is the version a
+     * conditional change is based on, as reading the representation and its tag one at a time may read two
+     * different versions.
+     *
+     * @param key the identifying key for a given representation
+     * @return the representation and its tag or null if no representation exists
+     */
+    public Tagged<V> getTagged(K key) {
+        Entry<V> entry = representations.get(key);
+        return entry == null ? null : new Tagged<>(value(entry), entry.tag);
+    }
+
+    /**
+     * retrieves the entity tag of the representation stored under the key K
+     *
+     * @param key the identifying key for a given representation
+     * @return the entity tag computed when the representation was stored or null if no representation exists
+     */
+    public String getTag(K key) {
+        Entry<V> entry = representations.get(key);
+        return entry == null ? null : entry.tag;
+    }
+
+    /**
+     * retrieves a pre-serialized variant of the representation stored under the key K.
+     * The variant is created using the renderer the first time it is requested and is afterwards
+     * reused until the representation is changed. The returned array is shared and must not be modified.
+     *
+     * @param key the identifying key for a given representation
+     * @param variant the name of the variant e.g. the media-type it is serialized to
+     * @param renderer the serialization of the representation into the variant
+     * @return the serialized variant or null if no representation exists for the key
+     */
+    public byte[] getVariant(K key, String variant, Function<? super V, byte[]> renderer) {
+        Entry<V> entry = representations.get(key);
+        if (entry == null) {
+            return null;
+        }
+        return entry.variants().computeIfAbsent(variant, v -> renderer.apply(value(entry)));
+    }
+
+    /**
+     * retrieves an encoded form, e.g. compressed, of a pre-serialized variant of a representation. The encoded
+     * variant is kept alongside the variant and is discarded with it when the representation is changed.
+     *
+     * @param key the identifying key for a given representation
+     * @param variant the name of the variant e.g. the media-type it is serialized to
+     * @param renderer the serialization of the representation into the variant
+     * @param encoding the name of the encoding e.g. {@code gzip}
+     * @param encoder the encoding of the serialized variant
+     * @return the encoded variant or null if no representation exists for the key
+     */
+    public byte[] getVariant(K key, String variant, Function<? super V, byte[]> renderer, String encoding,
+            UnaryOperator<byte[]> encoder) {
+        Entry<V> entry = representations.get(key);
+        if (entry == null) {
+            return null;
+        }
+        byte[] content = entry.variants().computeIfAbsent(variant, v -> renderer.apply(value(entry)));
+        return entry.variants().computeIfAbsent(variant + ENCODING + encoding, v -> encoder.apply(content));
+    }
+
+    /**
+     * retrieves a pre-serialized document rendered from all the representations in the container.
+     * The document is created using the renderer the first time it is requested after a change of the
+     * container and is afterwards reused. The returned array is shared and must not be modified.
+     *
+     * @param variant the name of the document e.g. the media-type it is serialized to
+     * @param renderer the serialization of the representations into the document
+     * @return the serialized document matching the current change code
+     */
+    public byte[] getDocument(String variant, Function<? super Collection<V>, byte[]> renderer) {
+        int version = chCode;
+        Document document = documents.get(variant);
+        if (document == null || document.chCode != version) {
+            document = new Document(version, renderer.apply(values()));
+            documents.put(variant, document);
+        }
+        return document.content;
+    }
+
+    /**
+     * retrieves an encoded form, e.g. compressed, of a pre-serialized document. The encoded document is kept
+     * alongside the document until the next change of the container.
+     *
+     * @param variant the name of the document e.g. the media-type it is serialized to
+     * @param renderer the serialization of the representations into the document
+     * @param encoding the name of the encoding e.g. {@code gzip}
+     * @param encoder the encoding of the serialized document
+     * @return the encoded document matching the current change code
+     */
+    public byte[] getDocument(String variant, Function<? super Collection<V>, byte[]> renderer, String encoding,
+            UnaryOperator<byte[]> encoder) {
+        int version = chCode;
+        byte[] content = getDocument(variant, renderer);
+        String name = variant + ENCODING + encoding;
+        Document document = documents.get(name);
+        if (document == null || document.chCode != version) {
+            document = new Document(version, encoder.apply(content));
+            documents.put(name, document);
+        }
+        return document.content;
+    }
+
+    /**
+     * retrieves a page of the representations ordered by their keys
+     *
+     * @param after the last key of the previous page or null for the first page
+     * @param limit the maximum number of representations in the page
+     * @return the page, which may be empty if no representations follow the given key
+     */
+    public Page<K, V> page(K after, int limit) {
+        return page(representations.keySet(), value -> true, after, limit);
+    }
+
+    /**
+     * retrieves a page of the representations ordered by their keys, which have the given values in the given
+     * indexes. The keys are read from the index with the fewest matches and every representation is checked
+     * against the other indexes.
+     *
+     * @param criteria the value a representation must have per name of an index, no criteria match every representation
+     * @param after the last key of the previous page or null for the first page
+     * @param limit the maximum number of representations in the page
+     * @return the page, which may be empty if no representations follow the given key
+     * @throws IllegalArgumentException if an index has not been declared
+     */
+    public Page<K, V> page(Map<String, ?> criteria, K after, int limit) {
+        if (criteria.isEmpty()) {
+            return page(after, limit);
+        }
+        NavigableSet<K> keys = null;
+        List<Predicate<V>> conditions = new ArrayList<>(criteria.size());
+        for (Map.Entry<String, ?> criterion : criteria.entrySet()) {
+            Index<K, V> index = indexes.get(criterion.getKey());
+            if (index == null) {
+                throw new IllegalArgumentException("No index named " + criterion.getKey());
+            }
+            NavigableSet<K> found = index.keys(criterion.getValue());
+            if (keys == null || found.size() < keys.size()) {
+                keys = found;
+            }
+            conditions.add(value -> index.matches(value, criterion.getValue()));
+        }
+        return page(keys, value -> conditions.stream().allMatch(condition -> condition.test(value)), after, limit);
+    }
+
+    private Page<K, V> page(NavigableSet<K> keys, Predicate<V> filter, K after, int limit) {
+        NavigableSet<K> following = after == null ? keys : keys.tailSet(after, false);
+        List<Map.Entry<K, V>> entries = new ArrayList<>(Math.min(limit, 64));
+        K next = null;
+        for (K key : following) {
+            V value = get(key);
+            if (value == null || !filter.test(value)) {
+                continue;
+            }
+            if (entries.size() == limit) {
+                next = entries.get(limit - 1).getKey();
+                break;
+            }
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(key, value));
+        }
+        boolean hasPrevious = false;
+        K previous = null;
+        if (after != null) {
+            int skipped = 0;
+            for (K key : keys.headSet(after, true).descendingSet()) {
+                V value = get(key);
+                if (value == null || !filter.test(value)) {
+                    continue;
+                }
+                hasPrevious = true;
+                if (skipped == limit) {
+                    previous = key;
+                    break;
+                }
+                skipped++;
+            }
+        }
+        return new Page<>(entries, next, hasPrevious, previous);
+    }
+
+    /**
+     * declares a secondary index on a value extracted from the representations, the index is built from the
+     * representations in the container and is afterwards maintained by every change.
+     *
+     * @param name the name of the index
+     * @param extractor the value of a representation to index it by, a representation with a null value is not indexed
+     */
+    public void index(String name, Function<? super V, ?> extractor) {
+        declare(name, new ValueIndex<>(extractor));
+    }
+
+    /**
+     * declares a full text index on a text extracted from the representations, which is searched by giving the
+     * beginnings of the words of the text as the value of the index in {@link #page(Map, Comparable, int)}.
+     * The words are found and compared ignoring case and diacritics, see {@link Terms}.
+     *
+     * @param name the name of the index
+     * @param text the text of a representation to search in, which may be null
+     */
+    public void textIndex(String name, Function<? super V, String> text) {
+        declare(name, new TextIndex<>(text));
+    }
+
+    private void declare(String name, Index<K, V> index) {
+        synchronized (store) {
+            representations.forEach((key, entry) -> index.put(key, value(entry)));
+            indexes.put(name, index);
+        }
     }
 
     /**
@@ -34,29 +353,248 @@ public class RepresentationContainer<K, V> {
      * @param representation the representation object
      */
     public void add(K key, V representation) {
-        if (representations.get(key) == null) {
-            chCode++;
-        } else if (!representation.equals(representations.get(key))) {
+        write(Collections.singletonList(Change.add(key, representation)));
+    }
+
+    public void remove(K key) {
+        write(Collections.singletonList(Change.remove(key)));
+    }
+
+    /**
+     * adds a value object V under the key K, if the representation stored under the key has the entity tag
+     *
+     * @param key the identifying key for a given representation
+     * @param tag the entity tag of the representation the change is based on or null if no representation
+     * is expected to exist
+     * @param representation the representation object
+     * @return true if the representation was added and false if the tag did not match
+     */
+    public boolean addIfTag(K key, String tag, V representation) {
+        return write(Collections.singletonList(Change.addIfTag(key, tag, representation))).isEmpty();
+    }
+
+    /**
+     * removes the representation stored under the key K, if it has the entity tag
+     *
+     * @param key the identifying key for a given representation
+     * @param tag the entity tag of the representation the change is based on
+     * @return true if the representation was removed and false if the tag did not match
+     */
+    public boolean removeIfTag(K key, String tag) {
+        return write(Collections.singletonList(Change.removeIfTag(key, tag))).isEmpty();
+    }
+
+    /**
+     * marks the representation stored under the key K as changed, this is used when a representation has been
+     * altered in place and therefore its entity tag is recomputed and its pre-serialized variants are discarded.
+     *
+     * @param key the identifying key for a given representation
+     */
+    public void update(K key) {
+        write(Collections.singletonList(Change.update(key)));
+    }
+
+    /**
+     * makes a number of changes as one write, where the changes are stored and flushed to the store together
+     * and are made visible to readers afterwards in the given order. A conditional change, where the tag does
+     * not match, is rejected and the other changes are made. If a change cannot be stored, none of the changes
+     * are made and the changes stored so far are rolled back.
+     *
+     * @param changes the changes to make
+     * @return the rejected changes, which is empty when every change was made
+     */
+    public List<Change<K, V>> write(List<Change<K, V>> changes) {
+        synchronized (store) {
+            List<Change<K, V>> accepted = new ArrayList<>(changes.size());
+            List<Change<K, V>> rejected = new ArrayList<>(0);
+            Map<K, Change<K, V>> written = new HashMap<>();
+            try {
+                for (Change<K, V> change : changes) {
+                    if (change.conditional && !Objects.equals(change.tag, currentTag(change.key, written))) {
+                        rejected.add(change);
+                        continue;
+                    }
+                    accepted.add(change);
+                    written.put(change.key, change);
+                    if (change.kind == Change.Kind.REMOVE) {
+                        store.removed(change.key);
+                    } else {
+                        V representation = change.representation == null ? get(change.key) : change.representation;
+                        if (representation != null) {
+                            store.added(change.key, representation);
+                        }
+                    }
+                }
+                if (accepted.isEmpty()) {
+                    return rejected;
+                }
+                store.flush();
+            } catch (RuntimeException e) {
+                rollback(e);
+                throw e;
+            }
+            for (Change<K, V> change : accepted) {
+                apply(change);
+            }
+            compactIfNeeded();
+            return rejected;
+        }
+    }
+
+    /**
+     * discards the changes of a failed write from the store, none of them has been made visible
+     */
+    private void rollback(RuntimeException failure) {
+        try {
+            store.rollback();
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * @return the tag of the representation after the changes written so far in the current write
+     */
+    private String currentTag(K key, Map<K, Change<K, V>> written) {
+        Change<K, V> previous = written.get(key);
+        if (previous == null) {
+            return getTag(key);
+        }
+        if (previous.kind == Change.Kind.REMOVE) {
+            return null;
+        }
+        V representation = previous.representation == null ? get(key) : previous.representation;
+        return representation == null ? null : tagger.apply(representation);
+    }
+
+    private void apply(Change<K, V> change) {
+        if (change.kind == Change.Kind.ADD) {
+            V representation = change.representation;
+            if (representations.get(change.key) == null) {
+                chCode++;
+            } else if (!representation.equals(get(change.key))) {
+                chCode++;
+            }
+            putEntry(change.key, entry(representation));
+            indexes.values().forEach(index -> index.put(change.key, representation));
+        } else if (change.kind == Change.Kind.REMOVE) {
+            removeEntry(change.key);
+            indexes.values().forEach(index -> index.remove(change.key));
             chCode++;
+        } else {
+            Entry<V> entry = representations.get(change.key);
+            if (entry != null) {
+                V representation = change.representation == null ? value(entry) : change.representation;
+                representations.put(change.key, entry(representation));
+                indexes.values().forEach(index -> index.put(change.key, representation));
+                chCode++;
+            }
         }
-        representations.put(key, representation);
     }
 
-    public void remove(K key) {
-        representations.remove(key);
-        chCode++;
+    private Entry<V> entry(V representation) {
+        return new Entry<>(memory == null ? representation : memory.encode(representation), tagger.apply(representation));
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(Entry<V> entry) {
+        return memory == null ? (V) entry.content : memory.decode((byte[]) entry.content);
+    }
+
+    /**
+     * the size of the container is counted by the writer, as counting the entries of the map visits every entry
+     */
+    private void putEntry(K key, Entry<V> entry) {
+        if (representations.put(key, entry) == null) {
+            size++;
+        }
+    }
+
+    private void removeEntry(K key) {
+        if (representations.remove(key) != null) {
+            size--;
+        }
+    }
+
+    /**
+     * closes the store behind the container
+     */
+    public void close() {
+        synchronized (store) {
+            store.close();
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (store.needsCompaction(size)) {
+            store.compact(entrySet());
+        }
     }
 
     public Collection<V> values() {
-        return Collections.unmodifiableCollection(representations.values());
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                Iterator<Entry<V>> entries = representations.values().iterator();
+                return new Iterator<V>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public V next() {
+                        return value(entries.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
     public Set<Map.Entry<K, V>> entrySet() {
-        return Collections.unmodifiableSet(representations.entrySet());
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                Iterator<Map.Entry<K, Entry<V>>> entries = representations.entrySet().iterator();
+                return new Iterator<Map.Entry<K, V>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        Map.Entry<K, Entry<V>> entry = entries.next();
+                        return new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), value(entry.getValue()));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
     }
 
+    /**
+     * marks the container as changed, this is used when a representation has been altered in place
+     * and therefore every entity tag is recomputed and every pre-serialized variant is discarded.
+     */
     public void alterchCode() {
-        chCode++;
+        synchronized (store) {
+            representations.forEach((key, entry) -> store.added(key, value(entry)));
+            store.flush();
+            representations.replaceAll((key, entry) -> entry(value(entry)));
+            representations.forEach((key, entry) -> indexes.values().forEach(index -> index.put(key, value(entry))));
+            chCode++;
+            compactIfNeeded();
+        }
     }
 
     public String getChCode() {
@@ -64,10 +602,420 @@ public class RepresentationContainer<K, V> {
     }
 
     public int size() {
-        return representations.size();
+        return size;
     }
 
     public boolean isEmpty() {
         return representations.isEmpty();
     }
+
+    /**
+     * A stored representation or its encoding, its entity tag and its serialized variants, which are created
+     * when the first variant is requested.
+     */
+    private static final class Entry<V> {
+        private final Object content;
+        private final String tag;
+        private volatile Map<String, byte[]> variants;
+
+        Entry(Object content, String tag) {
+            this.content = content;
+            this.tag = tag;
+        }
+
+        Map<String, byte[]> variants() {
+            Map<String, byte[]> current = variants;
+            if (current == null) {
+                synchronized (this) {
+                    current = variants;
+                    if (current == null) {
+                        current = new ConcurrentHashMap<>(4);
+                        variants = current;
+                    }
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * A secondary index holding the keys of the representations per indexed value. An index is changed by one
+     * writer at a time, whereas the keys are read concurrently.
+     */
+    private abstract static class Index<K, V> {
+
+        /**
+         * @return the keys of the representations, which may match the value
+         */
+        abstract NavigableSet<K> keys(Object value);
+
+        /**
+         * @return true if the representation matches the value
+         */
+        abstract boolean matches(V representation, Object value);
+
+        abstract void put(K key, V representation);
+
+        abstract void remove(K key);
+
+        static <K> void removeKey(Map<?, NavigableSet<K>> keys, Object value, K key) {
+            NavigableSet<K> found = keys.get(value);
+            found.remove(key);
+            if (found.isEmpty()) {
+                keys.remove(value);
+            }
+        }
+    }
+
+    /**
+     * The keys of the representations having a value in an index, which are counted by the writer, as counting
+     * the keys of a skip list visits every key.
+     */
+    private static final class KeySet<K> extends ConcurrentSkipListSet<K> {
+        private static final long serialVersionUID = 1L;
+        private volatile int count;
+
+        @Override
+        public boolean add(K key) {
+            boolean added = super.add(key);
+            if (added) {
+                count++;
+            }
+            return added;
+        }
+
+        @Override
+        public boolean remove(Object key) {
+            boolean removed = super.remove(key);
+            if (removed) {
+                count--;
+            }
+            return removed;
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return count == 0;
+        }
+    }
+
+    /**
+     * An index of a single value extracted from each representation.
+     */
+    private static final class ValueIndex<K, V> extends Index<K, V> {
+        private final Function<? super V, ?> extractor;
+        private final Map<Object, NavigableSet<K>> keys = new ConcurrentHashMap<>();
+        private final Map<K, Object> values = new HashMap<>();
+
+        ValueIndex(Function<? super V, ?> extractor) {
+            this.extractor = extractor;
+        }
+
+        @Override
+        NavigableSet<K> keys(Object value) {
+            NavigableSet<K> found = keys.get(value);
+            return found == null ? Collections.emptyNavigableSet() : found;
+        }
+
+        @Override
+        boolean matches(V representation, Object value) {
+            return Objects.equals(extractor.apply(representation), value);
+        }
+
+        @Override
+        void put(K key, V representation) {
+            Object value = extractor.apply(representation);
+            Object previous = values.get(key);
+            if (Objects.equals(value, previous)) {
+                return;
+            }
+            if (value != null) {
+                keys.computeIfAbsent(value, v -> new KeySet<>()).add(key);
+                values.put(key, value);
+            }
+            if (previous != null) {
+                if (value == null) {
+                    values.remove(key);
+                }
+                removeKey(keys, previous, key);
+            }
+        }
+
+        @Override
+        void remove(K key) {
+            Object previous = values.remove(key);
+            if (previous != null) {
+                removeKey(keys, previous, key);
+            }
+        }
+    }
+
+    /**
+     * An inverted index of the terms of a text extracted from each representation, see {@link Terms}. The terms
+     * are kept sorted, thus the terms starting with a prefix are a range of the dictionary. A query matches a
+     * representation if every term of the query is a prefix of a term of the representation.
+     */
+    private static final class TextIndex<K, V> extends Index<K, V> {
+        private final Function<? super V, String> text;
+        private final ConcurrentNavigableMap<String, NavigableSet<K>> keys = new ConcurrentSkipListMap<>();
+        private final Map<K, Set<String>> terms = new HashMap<>();
+
+        TextIndex(Function<? super V, String> text) {
+            this.text = text;
+        }
+
+        /**
+         * @return the keys having a term starting with the query term, which is the beginning of the fewest terms
+         */
+        @Override
+        NavigableSet<K> keys(Object query) {
+            Collection<NavigableSet<K>> fewest = null;
+            int fewestTerms = Integer.MAX_VALUE;
+            for (String prefix : Terms.of(String.valueOf(query))) {
+                Collection<NavigableSet<K>> prefixed = keys.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+                int terms = 0;
+                for (Iterator<NavigableSet<K>> sets = prefixed.iterator(); sets.hasNext() && terms < fewestTerms; sets.next()) {
+                    terms++;
+                }
+                if (terms < fewestTerms) {
+                    fewest = prefixed;
+                    fewestTerms = terms;
+                }
+            }
+            Iterator<NavigableSet<K>> sets = fewest == null ? Collections.emptyIterator() : fewest.iterator();
+            if (!sets.hasNext()) {
+                return Collections.emptyNavigableSet();
+            }
+            NavigableSet<K> first = sets.next();
+            if (!sets.hasNext()) {
+                return first;
+            }
+            NavigableSet<K> union = new TreeSet<>(first);
+            sets.forEachRemaining(union::addAll);
+            return union;
+        }
+
+        @Override
+        boolean matches(V representation, Object query) {
+            Set<String> representationTerms = Terms.of(text.apply(representation));
+            for (String prefix : Terms.of(String.valueOf(query))) {
+                if (representationTerms.stream().noneMatch(term -> term.startsWith(prefix))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        void put(K key, V representation) {
+            Set<String> current = Terms.of(text.apply(representation));
+            Set<String> previous = terms.getOrDefault(key, Collections.emptySet());
+            if (current.equals(previous)) {
+                return;
+            }
+            for (String term : current) {
+                if (!previous.contains(term)) {
+                    keys.computeIfAbsent(term, t -> new KeySet<>()).add(key);
+                }
+            }
+            for (String term : previous) {
+                if (!current.contains(term)) {
+                    removeKey(keys, term, key);
+                }
+            }
+            if (current.isEmpty()) {
+                terms.remove(key);
+            } else {
+                terms.put(key, current);
+            }
+        }
+
+        @Override
+        void remove(K key) {
+            Set<String> previous = terms.remove(key);
+            if (previous != null) {
+                previous.forEach(term -> removeKey(keys, term, key));
+            }
+        }
+    }
+
+    /**
+     * A change to the container, which can be written together with other changes.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of representation
+     */
+    public static final class Change<K, V> {
+        private enum Kind { ADD, REMOVE, UPDATE }
+
+        private final Kind kind;
+        private final K key;
+        private final V representation;
+        private final boolean conditional;
+        private final String tag;
+
+        private Change(Kind kind, K key, V representation) {
+            this(kind, key, representation, false, null);
+        }
+
+        private Change(Kind kind, K key, V representation, boolean conditional, String tag) {
+            this.kind = kind;
+            this.key = key;
+            this.representation = representation;
+            this.conditional = conditional;
+            this.tag = tag;
+        }
+
+        /**
+         * @param key the identifying key for a given representation
+         * @param representation the representation added or replacing the existing representation
+         * @return the change adding the representation
+         */
+        public static <K, V> Change<K, V> add(K key, V representation) {
+            return new Change<>(Kind.ADD, key, representation);
+        }
+
+        /**
+         * @param key the identifying key for a given representation
+         * @param tag the entity tag of the representation the change is based on or null if no representation
+         * is expected to exist
+         * @param representation the representation added or replacing the existing representation
+         * @return the change adding the representation, which is rejected if the stored tag is not the given tag
+         */
+        public static <K, V> Change<K, V> addIfTag(K key, String tag, V representation) {
+            return new Change<>(Kind.ADD, key, representation, true, tag);
+        }
+
+        /**
+         * @param key the identifying key for a given representation
+         * @return the change removing the representation
+         */
+        public static <K, V> Change<K, V> remove(K key) {
+            return new Change<>(Kind.REMOVE, key, null);
+        }
+
+        /**
+         * @param key the identifying key for a given representation
+         * @param tag the entity tag of the representation the change is based on
+         * @return the change removing the representation, which is rejected if the stored tag is not the given tag
+         */
+        public static <K, V> Change<K, V> removeIfTag(K key, String tag) {
+            return new Change<>(Kind.REMOVE, key, null, true, tag);
+        }
+
+        /**
+         * @param key the identifying key for a representation, which has been altered in place
+         * @return the change marking the representation as changed
+         */
+        public static <K, V> Change<K, V> update(K key) {
+            return new Change<>(Kind.UPDATE, key, null);
+        }
+
+        /**
+         * @param key the identifying key for a representation, which has been altered
+         * @param representation the altered representation, which is read from the container when it is kept
+         * encoded and thus is not the stored representation
+         * @return the change marking the representation as changed
+         */
+        public static <K, V> Change<K, V> update(K key, V representation) {
+            return new Change<>(Kind.UPDATE, key, representation);
+        }
+
+        public K getKey() {
+            return key;
+        }
+    }
+
+    /**
+     * A representation and the entity tag it was stored with.
+     *
+     * @param <V> the type of representation
+     */
+    public static final class Tagged<V> {
+        private final V representation;
+        private final String tag;
+
+        Tagged(V representation, String tag) {
+            this.representation = representation;
+            this.tag = tag;
+        }
+
+        public V getRepresentation() {
+            return representation;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+    }
+
+    /**
+     * A page of representations and the keys addressing the pages next to it.
+     *
+     * @param <K> the type of the key
+     * @param <V> the type of representation
+     */
+    public static final class Page<K, V> {
+        private final List<Map.Entry<K, V>> entries;
+        private final K next;
+        private final boolean hasPrevious;
+        private final K previous;
+
+        Page(List<Map.Entry<K, V>> entries, K next, boolean hasPrevious, K previous) {
+            this.entries = Collections.unmodifiableList(entries);
+            this.next = next;
+            this.hasPrevious = hasPrevious;
+            this.previous = previous;
+        }
+
+        public List<Map.Entry<K, V>> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return true if representations follow this page
+         */
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        /**
+         * @return the key to read the following page after or null if this is the last page
+         */
+        public K getNext() {
+            return next;
+        }
+
+        /**
+         * @return true if representations precede this page
+         */
+        public boolean hasPrevious() {
+            return hasPrevious;
+        }
+
+        /**
+         * @return the key to read the preceding page after or null if the preceding page is the first page
+         */
+        public K getPrevious() {
+            return previous;
+        }
+    }
+
+    /**
+     * A serialized document and the change code it was rendered at.
+     */
+    private static final class Document {
+        private final int chCode;
+        private final byte[] content;
+
+        Document(int chCode, byte[] content) {
+            this.chCode = chCode;
+            this.content = content;
+        }
+    }
 }
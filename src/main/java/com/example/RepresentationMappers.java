@@ -0,0 +1,67 @@
+package com.example;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * A registry of pre-configured readers and writers for representation types.
+ * <p>
+ * Creating a new mapper for every request means that Jackson has to rebuild its serializer and
+ * deserializer caches every time. The registry builds an {@link ObjectReader} and an {@link ObjectWriter}
+ * per representation type once, with the root (de)serializers resolved up front, and hands out those
+ * immutable and thread-safe instances to every request.
+ */
+public class RepresentationMappers {
+
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * registers the given representation types using the supplied mapper configuration
+     *
+     * @param mapper the configured mapper e.g. a HALMapper for HAL based representations
+     * @param types the representation types that are read and written by means of the mapper
+     * @return the registry itself
+     */
+    public RepresentationMappers register(ObjectMapper mapper, Class<?>... types) {
+        for (Class<?> type : types) {
+            readers.put(type, mapper.readerFor(type));
+            writers.put(type, mapper.writerFor(type));
+        }
+        return this;
+    }
+
+    /**
+     * retrieves the pre-built reader for a registered representation type
+     *
+     * @param type the representation type
+     * @return a thread-safe reader for the type
+     * @throws IllegalArgumentException if the type has not been registered
+     */
+    public ObjectReader reader(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            throw new IllegalArgumentException("No reader registered for " + type.getName());
+        }
+        return reader;
+    }
+
+    /**
+     * retrieves the pre-built writer for a registered representation type
+     *
+     * @param type the representation type
+     * @return a thread-safe writer for the type
+     * @throws IllegalArgumentException if the type has not been registered
+     */
+    public ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer == null) {
+            throw new IllegalArgumentException("No writer registered for " + type.getName());
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * The persistence behind a {@link RepresentationContainer}.
+ * <p>
+ * The container keeps every representation in memory and serves all reads from there, the store is told about
+ * every change and is asked for the stored representations once, when the container is created. Changes are
+ * given to the store one at a time by the container, thus an implementation does not need to be thread safe.
+ * The changes of a write are followed by a flush, after which the changes must be durable, or by a rollback, if
+ * the write failed, after which the changes must be gone.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of representation
+ */
+public interface RepresentationStore<K, V> extends AutoCloseable {
+
+    /**
+     * reads the stored representations
+     *
+     * @param consumer receives every stored key and representation in the order they were stored,
+     * where the representation is null if it has been removed
+     */
+    void replay(BiConsumer<? super K, ? super V> consumer);
+
+    /**
+     * stores a representation, which has been added, replaced or altered
+     *
+     * @param key the identifying key for a given representation
+     * @param representation the representation object
+     */
+    void added(K key, V representation);
+
+    /**
+     * stores that a representation has been removed
+     *
+     * @param key the identifying key for a given representation
+     */
+    void removed(K key);
+
+    /**
+     * makes the changes stored since the last flush durable
+     */
+    void flush();
+
+    /**
+     * discards the changes stored since the last flush, used when a write fails before it is flushed, thus the
+     * changes of a failed write are never made durable
+     */
+    void rollback();
+
+    /**
+     * @param size the number of representations in the container
+     * @return true if the store would benefit from being rewritten from the current representations
+     */
+    boolean needsCompaction(int size);
+
+    /**
+     * rewrites the store to contain the current representations only
+     *
+     * @param representations every representation in the container
+     */
+    void compact(Iterable<Map.Entry<K, V>> representations);
+
+    @Override
+    void close();
+
+    /**
+     * @return a store that does not store anything, used when representations are kept in memory only
+     */
+    static <K, V> RepresentationStore<K, V> none() {
+        return new RepresentationStore<K, V>() {
+            @Override
+            public void replay(BiConsumer<? super K, ? super V> consumer) {
+                // nothing is stored
+            }
+
+            @Override
+            public void added(K key, V representation) {
+                // nothing is stored
+            }
+
+            @Override
+            public void removed(K key) {
+                // nothing is stored
+            }
+
+            @Override
+            public void flush() {
+                // nothing is stored
+            }
+
+            @Override
+            public void rollback() {
+                // nothing is stored
+            }
+
+            @Override
+            public boolean needsCompaction(int size) {
+                return false;
+            }
+
+            @Override
+            public void compact(Iterable<Map.Entry<K, V>> representations) {
+                // nothing is stored
+            }
+
+            @Override
+            public void close() {
+                // nothing is stored
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns strings, which are repeated across many representations e.g. languages and countries, by giving each
+ * distinct string a number, thus a representation can refer to the string using a few bytes.
+ * <p>
+ * Numbers are given by one writer at a time and are never reused, whereas strings are read concurrently. The
+ * number 0 is the null string.
+ */
+public final class StringDictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] strings = new String[64];
+    private int size = 1;
+
+    /**
+     * @param string the string or null
+     * @return the number of the string, which is given to the string the first time it is seen
+     */
+    public int id(String string) {
+        if (string == null) {
+            return 0;
+        }
+        Integer id = ids.get(string);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(string);
+            if (id == null) {
+                String[] current = strings;
+                if (size == current.length) {
+                    current = Arrays.copyOf(current, current.length * 2);
+                }
+                current[size] = string;
+                strings = current;
+                id = size++;
+                ids.put(string, id);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @param id the number of a string
+     * @return the string or null for 0
+     */
+    public String get(int id) {
+        return strings[id];
+    }
+
+    /**
+     * @return the number of distinct strings
+     */
+    public int size() {
+        return ids.size();
+    }
+}
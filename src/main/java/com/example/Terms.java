@@ -0,0 +1,75 @@
+package com.example;
+
+import java.text.Normalizer;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits a text into the terms used for searching, a term is a sequence of letters and digits.
+ * <p>
+ * The terms are folded, thus searching ignores case and diacritics: the text is lower cased, decomposed and its
+ * combining marks are removed, e.g. {@code Hallå} becomes {@code halla}. The Nordic letters, which do not
+ * decompose, are folded by hand, {@code æ} to {@code ae} and {@code ø} to {@code o}.
+ */
+public final class Terms {
+
+    private Terms() {
+        // reduced constructor scope.
+    }
+
+    /**
+     * @param text the text or null
+     * @return the distinct folded terms in the order they occur in the text
+     */
+    public static Set<String> of(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String folded = fold(text);
+        Set<String> terms = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean part = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                terms.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * @param text the text
+     * @return the text in lower case without diacritics
+     */
+    public static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        boolean ascii = true;
+        for (int i = 0; i < lower.length() && ascii; i++) {
+            ascii = lower.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return lower;
+        }
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'æ') {
+                folded.append("ae");
+            } else if (c == 'ø') {
+                folded.append('o');
+            } else {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.filter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Compresses responses using gzip, when the consumer accepts gzip and the response is at least as large as the
+ * threshold given by {@code -Dgreetings.compression.threshold} (default 1024 bytes), smaller responses are sent
+ * as they are, as the overhead of gzip exceeds the gain.
+ * <p>
+ * The response is buffered until it reaches the threshold, thus the size of streamed responses needs not be known
+ * in advance. Responses, which already have a {@code Content-Encoding}, e.g. a pre-compressed cached variant,
+ * are left untouched.
+ */
+public class CompressionFilter implements ContainerResponseFilter, WriterInterceptor {
+
+    /** the minimum size in bytes of a compressed response */
+    public static final int THRESHOLD = Integer.getInteger("greetings.compression.threshold", 1024);
+
+    private static final String GZIP = "gzip";
+    private static final String ACCEPTED = CompressionFilter.class.getName() + ".accepted";
+
+    private final int threshold;
+
+    public CompressionFilter() {
+        this(THRESHOLD);
+    }
+
+    /**
+     * @param threshold the minimum size in bytes of a compressed response
+     */
+    public CompressionFilter(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        if (!responseContext.hasEntity()) {
+            return;
+        }
+        responseContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (responseContext.getHeaderString(HttpHeaders.CONTENT_ENCODING) == null
+                && accepts(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING))) {
+            requestContext.setProperty(ACCEPTED, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (context.getProperty(ACCEPTED) == null) {
+            context.proceed();
+            return;
+        }
+        ThresholdOutputStream out = new ThresholdOutputStream(context.getOutputStream(), threshold, context.getHeaders());
+        context.setOutputStream(out);
+        context.proceed();
+        out.finish();
+    }
+
+    /**
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request
+     * @return true if gzip is accepted with a quality above 0 by name or by {@code *}
+     */
+    public static boolean accepts(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (GZIP.equals(name) || "x-gzip".equals(name)) {
+                return accepted;
+            }
+            if ("*".equals(name)) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * @param content the content to compress
+     * @return the gzip compressed content
+     */
+    public static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compress content", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Buffers the response until it reaches the threshold, then adds the {@code Content-Encoding} header, which is
+     * sent when the first byte is written, and compresses the buffer and the rest of the response.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final int threshold;
+        private final MultivaluedMap<String, Object> headers;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private GZIPOutputStream gzip;
+        private boolean finished;
+
+        ThresholdOutputStream(OutputStream out, int threshold, MultivaluedMap<String, Object> headers) {
+            this.out = out;
+            this.threshold = threshold;
+            this.headers = headers;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (gzip != null) {
+                gzip.write(b, off, len);
+                return;
+            }
+            buffer.write(b, off, len);
+            if (buffer.size() >= threshold) {
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+                gzip = new GZIPOutputStream(out, 8192);
+                buffer.writeTo(gzip);
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (gzip != null) {
+                gzip.flush();
+            }
+        }
+
+        /**
+         * writes the buffered response uncompressed, if it did not reach the threshold, or ends the compression
+         */
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (gzip == null) {
+                buffer.writeTo(out);
+                buffer = null;
+            } else {
+                gzip.finish();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.filter;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.PreMatching;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.core.Response;
+
+/**
+ * A pre-matching filter that answers conditional GET requests for a single resource in a collection with
+ * {@code 304 Not Modified} before the request is matched to a resource method.
+ * <p>
+ * Consumers polling a resource using {@code If-None-Match} will mostly get a 304 back, the filter looks up
+ * the stored entity tag for the addressed resource and evaluates the preconditions exactly like the resource
+ * method would, however without instantiating the resource, dispatching the request and running the message
+ * body writers. If the resource is unknown or the preconditions are not met the request continues as usual.
+ */
+@PreMatching
+public class NotModifiedFilter implements ContainerRequestFilter {
+
+    private final String collection;
+    private final Validators validators;
+
+    /**
+     * @param collection the first path segment of the resources handled e.g. {@code greetings}
+     * @param validators the lookup of the current validators for a resource in the collection
+     */
+    public NotModifiedFilter(String collection, Validators validators) {
+        this.collection = collection;
+        this.validators = validators;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        String method = requestContext.getMethod();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method)) {
+            return;
+        }
+        if (requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH) == null) {
+            return;
+        }
+        List<PathSegment> segments = requestContext.getUriInfo().getPathSegments();
+        if (segments.size() != 2 || !collection.equals(segments.get(0).getPath())) {
+            return;
+        }
+        EntityTag eTag = validators.getETag(segments.get(1).getPath(),
+                requestContext.getHeaderString(HttpHeaders.ACCEPT),
+                requestContext.getHeaderString(HttpHeaders.ACCEPT_LANGUAGE));
+        if (eTag == null) {
+            return;
+        }
+        Response.ResponseBuilder builder = requestContext.getRequest().evaluatePreconditions(validators.getLastModified(), eTag);
+        if (builder != null) {
+            requestContext.abortWith(builder.build());
+        }
+    }
+
+    /**
+     * The validators for the current representation of a resource.
+     */
+    public interface Validators {
+
+        /**
+         * @param resource the addressed resource in the collection
+         * @param accept the accept header of the request
+         * @param acceptLanguage the accept-language header of the request
+         * @return the entity tag of the representation that would be returned or null if unknown
+         */
+        EntityTag getETag(String resource, String accept, String acceptLanguage);
+
+        /**
+         * @return the last modified timestamp of the representations
+         */
+        Date getLastModified();
+    }
+}
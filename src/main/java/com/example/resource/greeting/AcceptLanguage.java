@@ -0,0 +1,214 @@
+package com.example.resource.greeting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The weighted language ranges of an {@code Accept-Language} header as defined in RFC 7231 section 5.3.5.
+ * <p>
+ * The ranges are ordered by their quality, ranges with the same quality keep the order of the header and ranges
+ * with a quality of 0 are left out. A range matches a language of a greeting if they are equal ignoring case,
+ * the range {@code *} matches the default language {@code da}. A greeting is looked up as defined in RFC 4647
+ * section 3.4, when it does not exist in the language of a range, the last subtag of the range is removed and the
+ * shorter range is tried before the next range, e.g. {@code en-gb, da;q=0.5} finds a greeting in {@code en}
+ * before one in {@code da}.
+ * <p>
+ * Consumers send the same few headers over and over, thus the parsed ranges are kept per header in a small cache,
+ * making a known header cost a single map lookup. The cache is emptied when it is full.
+ */
+final class AcceptLanguage {
+
+    static final String DEFAULT_LANGUAGE = "da";
+
+    private static final int CACHE_SIZE = 256;
+    private static final String WILDCARD = "*";
+    private static final List<String> DEFAULT = Collections.singletonList(DEFAULT_LANGUAGE);
+    private static final Map<String, List<String>> CACHE = new ConcurrentHashMap<>();
+
+    private AcceptLanguage() {
+        // reduced constructor scope.
+    }
+
+    /**
+     * @param header the {@code Accept-Language} header or null
+     * @return the most preferred language, which is used when a greeting is created
+     */
+    static String preferred(String header) {
+        for (String range : ranges(header)) {
+            if (!WILDCARD.equals(range)) {
+                return range;
+            }
+        }
+        return DEFAULT_LANGUAGE;
+    }
+
+    /**
+     * @param header the {@code Accept-Language} header or null
+     * @param present tells whether the greeting exists in a language
+     * @return the most preferred language the greeting exists in or the most preferred language if none exist
+     */
+    static String resolve(String header, Predicate<String> present) {
+        String language = find(header, candidate -> present.test(candidate) ? candidate : null);
+        return language == null ? preferred(header) : language;
+    }
+
+    /**
+     * @param header the {@code Accept-Language} header or null
+     * @param lookup finds a greeting in a language or gives null if the greeting does not exist in the language
+     * @param <T> the type of greeting found
+     * @return the greeting in the most preferred language it exists in or null if it exists in none
+     */
+    static <T> T find(String header, Function<String, T> lookup) {
+        for (String range : ranges(header)) {
+            T found = lookup(WILDCARD.equals(range) ? DEFAULT_LANGUAGE : range, lookup);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * looks up the range and then the range with its last subtag removed until a greeting is found, where a
+     * single character subtag left at the end is removed as well, e.g. {@code zh-hant-x-tw}, {@code zh-hant} and
+     * {@code zh}
+     */
+    private static <T> T lookup(String range, Function<String, T> lookup) {
+        String language = range;
+        while (true) {
+            T found = lookup.apply(language);
+            if (found != null) {
+                return found;
+            }
+            int dash = language.lastIndexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            if (dash >= 2 && language.charAt(dash - 2) == '-') {
+                dash -= 2;
+            }
+            language = language.substring(0, dash);
+        }
+    }
+
+    /**
+     * @param header the {@code Accept-Language} header or null
+     * @return the language ranges ordered by quality, the default language if the header is missing or empty
+     */
+    static List<String> ranges(String header) {
+        if (header == null || header.isEmpty()) {
+            return DEFAULT;
+        }
+        List<String> ranges = CACHE.get(header);
+        if (ranges == null) {
+            ranges = parse(header);
+            if (CACHE.size() >= CACHE_SIZE) {
+                CACHE.clear();
+            }
+            CACHE.put(header, ranges);
+        }
+        return ranges;
+    }
+
+    private static List<String> parse(String header) {
+        List<String> ranges = new ArrayList<>();
+        List<Integer> qualities = new ArrayList<>();
+        int length = header.length();
+        int start = 0;
+        while (start < length) {
+            int end = header.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            int parameters = header.indexOf(';', start);
+            int rangeEnd = parameters < 0 || parameters > end ? end : parameters;
+            String range = header.substring(start, rangeEnd).trim().toLowerCase(Locale.ROOT);
+            int quality = rangeEnd == end ? 1000 : quality(header, rangeEnd + 1, end);
+            if (quality > 0 && isRange(range) && !ranges.contains(range)) {
+                int position = ranges.size();
+                while (position > 0 && qualities.get(position - 1) < quality) {
+                    position--;
+                }
+                ranges.add(position, range);
+                qualities.add(position, quality);
+            }
+            start = end + 1;
+        }
+        return Collections.unmodifiableList(ranges);
+    }
+
+    /**
+     * @return the quality in thousandths from the {@code q} among the parameters between start and end, 1000 if
+     * there is no {@code q} and 0 if it is empty or malformed
+     */
+    private static int quality(String header, int start, int end) {
+        while (start < end) {
+            int next = header.indexOf(';', start);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            String parameter = header.substring(start, next).trim();
+            int equals = parameter.indexOf('=');
+            String name = equals < 0 ? parameter : parameter.substring(0, equals).trim();
+            if ("q".equalsIgnoreCase(name)) {
+                return equals < 0 ? 0 : qvalue(parameter.substring(equals + 1).trim());
+            }
+            start = next + 1;
+        }
+        return 1000;
+    }
+
+    /**
+     * @return the quality value in thousandths, 0 if it is malformed
+     */
+    private static int qvalue(String value) {
+        if (value.isEmpty() || value.length() > 5 || value.charAt(0) != '0' && value.charAt(0) != '1') {
+            return 0;
+        }
+        int thousandths = (value.charAt(0) - '0') * 1000;
+        if (value.length() > 1) {
+            if (value.charAt(1) != '.') {
+                return 0;
+            }
+            int scale = 100;
+            for (int i = 2; i < value.length(); i++, scale /= 10) {
+                char digit = value.charAt(i);
+                if (digit < '0' || digit > '9') {
+                    return 0;
+                }
+                thousandths += (digit - '0') * scale;
+            }
+        }
+        return thousandths > 1000 ? 0 : thousandths;
+    }
+
+    /**
+     * @param language a lower case language tag e.g. {@code en-gb}
+     * @return true if the language can be asked for by a range of an {@code Accept-Language} header
+     */
+    static boolean isLanguage(String language) {
+        return !WILDCARD.equals(language) && isRange(language);
+    }
+
+    private static boolean isRange(String range) {
+        if (WILDCARD.equals(range)) {
+            return true;
+        }
+        if (range.isEmpty() || range.charAt(0) == '-' || range.charAt(range.length() - 1) == '-') {
+            return false;
+        }
+        for (int i = 0; i < range.length(); i++) {
+            char c = range.charAt(i);
+            if (!(c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
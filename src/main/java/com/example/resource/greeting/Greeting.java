@@ -1,17 +1,27 @@
 package com.example.resource.greeting;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import javax.inject.Inject;
 import javax.validation.constraints.Pattern;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -23,18 +33,33 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.ResponseBuilder;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import com.example.ContentHash;
+import com.example.GroupCommit;
+import com.example.JournalStore;
+import com.example.MediaTypeNegotiator;
 import com.example.RepresentationContainer;
-import com.example.service.patch.JSONPatchContainer;
+import com.example.RepresentationMappers;
+import com.example.RepresentationStore;
+import com.example.filter.CompressionFilter;
+import com.example.service.ResponseExecutor;
+import com.example.service.patch.JSONPatch;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.BufferRecyclers;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.openapitools.jackson.dataformat.hal.HALLink;
 import io.openapitools.jackson.dataformat.hal.HALMapper;
 import io.swagger.annotations.Api;
@@ -48,27 +73,58 @@ import io.swagger.annotations.ApiOperation;
 public class Greeting {
 
     private static final Logger LOGGER = Logger.getLogger(Greeting.class.getName());
-    
-    private static RepresentationContainer<String, GreetingRepresentation> representations = new RepresentationContainer<>();
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+    private static final String GREETING_VARIANT = "application/hal+json;concept=greeting;v=";
+    private static final String GZIP = "gzip";
+    static final int CURRENT_VERSION = 4;
 
-    private final Map<String, GreetingProducer> greetingProducers = new HashMap<>();
-    private final Map<String, GreetingListProducer> greetingListProducers = new HashMap<>();
+    private static final MediaTypeNegotiator<Integer> GREETING_VERSIONS = new MediaTypeNegotiator<Integer>()
+            .register("application/hal+json;concept=greeting;v=4", 4)
+            .register("application/hal+json;concept=greeting;v=3", 3)
+            .register("application/hal+json;concept=greeting;v=2", 2)
+            .register("application/hal+json;concept=greeting", CURRENT_VERSION)
+            .register("application/hal+json", CURRENT_VERSION)
+            .register("application/json", CURRENT_VERSION);
 
-    public Greeting() {
-        populateRepresentations();
-        greetingProducers.put("application/json", this::getGreetingG1V4);
-        greetingProducers.put("application/hal+json", this::getGreetingG1V4);
-        greetingProducers.put("application/hal+json;concept=greeting", this::getGreetingG1V4);
-        greetingProducers.put("application/hal+json;concept=greeting;v=2", this::getGreetingG1V2);
-        greetingProducers.put("application/hal+json;concept=greeting;v=3", this::getGreetingG1V3);
-        greetingProducers.put("application/hal+json;concept=greeting;v=4", this::getGreetingG1V4);
+    private static final MediaTypeNegotiator<Integer> GREETING_LIST_VERSIONS = new MediaTypeNegotiator<Integer>()
+            .register("application/hal+json;concept=greetings;v=2", 2)
+            .register("application/hal+json;concept=greetings;v=1", 1)
+            .register("application/hal+json;concept=greetings", 2)
+            .register("application/hal+json", 2)
+            .register("application/json", 2);
+
+    private static RepresentationContainer<String, GreetingRepresentation> representations = createRepresentations();
+
+    static final GroupCommit<String, GreetingRepresentation> WRITES = new GroupCommit<>(representations,
+            Integer.getInteger("greetings.batch.size", 64), Long.getLong("greetings.batch.linger", 0L), TimeUnit.MICROSECONDS);
+
+    private final Map<Integer, GreetingProducer> greetingProducers = new HashMap<>();
+    private final Map<Integer, GreetingListProducer> greetingListProducers = new HashMap<>();
+    private final ObjectReader greetingReader;
+    private final ObjectWriter greetingWriter;
+    private final ObjectWriter projectedWriter;
+    private final ObjectWriter greetingsWriter;
+    private final ObjectWriter linkWriter;
+    private final ResponseExecutor responses;
 
-        greetingListProducers.put("application/json", this::getGreetingListG1V2);
-        greetingListProducers.put("application/hal+json", this::getGreetingListG1V2);
-        greetingListProducers.put("application/hal+json;concept=greetings", this::getGreetingListG1V2);
-        greetingListProducers.put("application/hal+json;concept=greetings;v=2", this::getGreetingListG1V2);
-        greetingListProducers.put("application/hal+json;concept=greetings;v=1", this::getGreetingListG1V1);
+    @HeaderParam("Accept-Encoding")
+    private String acceptEncoding;
 
+    @Inject
+    public Greeting(RepresentationMappers mappers, ResponseExecutor responses) {
+        this.responses = responses;
+        greetingReader = mappers.reader(GreetingRepresentation.class);
+        greetingWriter = mappers.writer(GreetingRepresentation.class);
+        projectedWriter = mappers.writer(ProjectedGreetingRepresentation.class);
+        greetingsWriter = mappers.writer(GreetingsRepresentation.class);
+        linkWriter = mappers.writer(HALLink.class);
+        populateRepresentations();
+        greetingProducers.put(2, this::getGreetingG1V2);
+        greetingProducers.put(3, this::getGreetingG1V3);
+        greetingProducers.put(4, this::getGreetingG1V4);
+
+        greetingListProducers.put(2, this::getGreetingListG1V2);
+        greetingListProducers.put(1, this::getGreetingListG1V1);
     }
 
     /**
@@ -78,7 +134,7 @@ public class Greeting {
      * @param acceptLanguage the preferred language
      * @param logToken a correlation id for a consumer
      * @param greeting a json formatted input
-     * @return response the status, headers etc. send back to the consumer
+     * @param asyncResponse the response, which is resumed when the greeting has been stored
      *
      * {@code(
      *   {
@@ -102,16 +158,21 @@ public class Greeting {
     @Produces({"application/hal+json"})
     @Consumes({"application/json"})
     @ApiOperation(value = "create a new greeting")
-    public Response createNewGreeting(
+    public void createNewGreeting(
+            @Suspended AsyncResponse asyncResponse,
             @Context Request request,
             @HeaderParam("Accept-Language") @Pattern(regexp = "^((\\s*[a-z]{2},{0,1}(-{0,1}[a-z]{2}){0,1})+(;q=0\\.[1-9]){0,1},{0,1})+") String acceptLanguage,
             @HeaderParam("X-Log-Token") @Pattern(regexp = "^[a-zA-Z0-9\\-]{36}$") String logToken,
             String greeting) {
+        responses.execute(asyncResponse, validateOrCreateToken(logToken),
+                () -> createNewGreetingResponse(request, acceptLanguage, logToken, greeting));
+    }
+
+    private Response createNewGreetingResponse(Request request, String acceptLanguage, String logToken, String greeting) {
         Response.Status status = Response.Status.BAD_REQUEST;
-        ObjectMapper mapper = new HALMapper();
         try {
-            GreetingRepresentation mg = mapper.readValue(greeting, GreetingRepresentation.class);
-            String key = getGreetingRef(mg) + "_" + preferredLanguage(acceptLanguage);
+            GreetingRepresentation mg = greetingReader.readValue(greeting);
+            String key = getGreetingRef(mg) + "_" + AcceptLanguage.preferred(acceptLanguage);
             GreetingRepresentation stored = representations.get(key);
             if (stored != null) {
                 LOGGER.log(Level.INFO, "Attempted to update an existing Greeting (" + key + ") - in total (" + representations.size() + "):\n" + mg.toHAL());
@@ -133,7 +194,7 @@ public class Greeting {
             status = createNewGreeting(mg, mg.getSelf().getHref(), greeting, key, logToken + "problem creating new greeting");
             if (Response.Status.CREATED.equals(status)) {
                 LOGGER.log(Level.INFO, "Parsed new Greeting (" + key + ") - in total (" + representations.size() + "):\n" + mg.toHAL());
-                EntityTag et = getETag(mapper.writeValueAsString(representations.get(key)));
+                EntityTag et = getStoredETag(key);
                 return Response
                     .status(status)
                     .tag(et)
@@ -158,6 +219,16 @@ public class Greeting {
      * @param accept the accepted response format
      * @param logToken a correlation id for a consumer
      * @param eTag the concrete instance of the lists contents version seen temporally
+     * @param limit the maximum number of greetings in a page of the list
+     * @param cursor the position of a page as found in the next and prev links of the list
+     * @param fields the comma separated properties of the embedded greetings e.g. {@code greeting,language}
+     * @param embedded {@code false} if the list should contain the links to the greetings only
+     * @param language the language of the greetings in the list e.g. {@code English}
+     * @param country the country of the greetings in the list e.g. {@code England}
+     * @param nativeLanguage the native language of the greetings in the list e.g. {@code Dansk}
+     * @param text the beginnings of words in the greeting or title of the greetings in the list e.g. {@code hal hils}
+     * @param ids the comma separated names of a batch of greetings e.g. {@code hallo,hello}, each is embedded in the
+     * most preferred language it exists in together with its entity tag
      * @return String that will be returned containing "application/hal+json".
      */
     @GET
@@ -169,8 +240,46 @@ public class Greeting {
             @HeaderParam("Accept-Language")
             @Pattern(regexp = "^((\\s*[a-z]{2},{0,1}(-{0,1}[a-z]{2}){0,1})+(;q=0\\.[1-9]){0,1},{0,1})+") String acceptLanguage,
             @HeaderParam("X-Log-Token") @Pattern(regexp = "^[a-zA-Z0-9\\-]{36}$") String logToken,
-            @HeaderParam("If-None-Match") String eTag) {
-        return greetingListProducers.getOrDefault(accept, this::handle415Unsupported).getResponse(request, accept, acceptLanguage, logToken, eTag);
+            @HeaderParam("If-None-Match") String eTag,
+            @QueryParam("limit") @Pattern(regexp = "^([1-9][0-9]?|100)$") String limit,
+            @QueryParam("cursor") @Pattern(regexp = "^[a-zA-Z0-9_\\-]+$") String cursor,
+            @QueryParam("fields") @Pattern(regexp = "^[a-z]+(,[a-z]+)*$") String fields,
+            @QueryParam("embedded") @Pattern(regexp = "^(true|false)$") String embedded,
+            @QueryParam("language") String language,
+            @QueryParam("country") String country,
+            @QueryParam("native.language") String nativeLanguage,
+            @QueryParam("q") String text,
+            @QueryParam("ids") @Pattern(regexp = "^[a-z0-9\\-]+(,[a-z0-9\\-]+)*$") String ids) {
+        GreetingListQuery query;
+        try {
+            query = GreetingListQuery.of(limit, cursor, fields, embedded, language, country, nativeLanguage, text, ids);
+        } catch (IllegalArgumentException ex) {
+            LOGGER.log(Level.INFO, "Could not use the list query", ex);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        Integer version = GREETING_LIST_VERSIONS.negotiate(accept);
+        if (version == null) {
+            return handle415Unsupported(request, accept, acceptLanguage, logToken, eTag);
+        }
+        return greetingListProducers.get(version).getResponse(request, accept, acceptLanguage, logToken, eTag, query);
+    }
+
+    /**
+     * reads each greeting of a batch together with its tag in the most preferred language it exists in
+     */
+    private static Batch getBatch(String acceptLanguage, GreetingListQuery query) {
+        Batch batch = new Batch(query.getIds().size());
+        for (String id : query.getIds()) {
+            RepresentationContainer.Tagged<GreetingRepresentation> tagged
+                    = AcceptLanguage.find(acceptLanguage, language -> representations.getTagged(id + "_" + language));
+            if (tagged == null) {
+                batch.missing.add(id);
+            } else {
+                batch.greetings.add(tagged.getRepresentation());
+                batch.etags.add(getETag(tagged.getTag(), CURRENT_VERSION).toString());
+            }
+        }
+        return batch;
     }
 
     /**
@@ -182,7 +291,7 @@ public class Greeting {
      * @param eTag the actual instance content version for a given greeting
      * @param greeting a json formatted input
      * @param resource the concrete resource
-     * @return response the status, headers etc. for consumer
+     * @param asyncResponse the response, which is resumed when the greeting has been stored
      *
      * {@code(
      *   {
@@ -207,18 +316,23 @@ public class Greeting {
     @Produces({"application/hal+json"})
     @Consumes({"application/json"})
     @ApiOperation(value = "replace a greeting", response = GreetingRepresentation.class)
-    public Response replaceOrCreateGreeting(
+    public void replaceOrCreateGreeting(
+            @Suspended AsyncResponse asyncResponse,
             @Context Request request,
             @HeaderParam("Accept-Language") @Pattern(regexp = "^((\\s*[a-z]{2},{0,1}(-{0,1}[a-z]{2}){0,1})+(;q=0\\.[1-9]){0,1},{0,1})+") String acceptLanguage,
             @HeaderParam("X-Log-Token") @Pattern(regexp = "^[a-zA-Z0-9\\-]{36}$") String logToken,
             @HeaderParam("If-None-Match") String eTag,
             @PathParam("greeting") @Pattern(regexp = "^[a-z0-9\\-]+$") String resource,
             String greeting) {
-        ObjectMapper mapper = new HALMapper();
+        responses.execute(asyncResponse, validateOrCreateToken(logToken),
+                () -> replaceOrCreateGreetingResponse(request, acceptLanguage, logToken, resource, greeting));
+    }
+
+    private Response replaceOrCreateGreetingResponse(Request request, String acceptLanguage, String logToken, String resource, String greeting) {
         try {
-            GreetingRepresentation mappedGreeting = mapper.readValue(greeting, GreetingRepresentation.class);
-            String key = getGreetingRef(mappedGreeting) + "_" + preferredLanguage(acceptLanguage);
-            GreetingRepresentation stored = representations.get(key);
+            GreetingRepresentation mappedGreeting = greetingReader.readValue(greeting);
+            String key = getGreetingRef(mappedGreeting) + "_" + AcceptLanguage.preferred(acceptLanguage);
+            RepresentationContainer.Tagged<GreetingRepresentation> stored = representations.getTagged(key);
             final String msg = "Greeting (" + key + ") - in total (" + representations.size() + "):\n" + mappedGreeting.toHAL();
             final String inconsistency = "Href and ressource mismatch - target:" + resource + " object:" + msg;
             GreetingRepresentation receivedGreeting = new GreetingRepresentation(mappedGreeting);
@@ -226,22 +340,22 @@ public class Greeting {
             EntityTag et = null;
             if (stored == null) {
                 status = createNewGreeting(receivedGreeting, resource, msg, key, inconsistency);
-                et = getETag(mapper.writeValueAsString(representations.get(key)));
-            } else if (isRessourceIdCorrect(stored, resource)) {
-                et = getETag(mapper.writeValueAsString(stored));
+                et = getStoredETag(key);
+            } else if (isRessourceIdCorrect(stored.getRepresentation(), resource)) {
+                et = getETag(stored.getTag(), CURRENT_VERSION);
                 ResponseBuilder builder = request.evaluatePreconditions(et);
                 if (builder == null) {
-                    return Response.status(Response.Status.CONFLICT)
-                        .entity("{\"error\":\"object has been updated, please get newest version\"}")
-                        .header("X-Log-Token", validateOrCreateToken(logToken))
-                        .build();
+                    return getConflictResponse(logToken);
                 }
-                status = replaceGreeting(msg, key, receivedGreeting);
-                et = getETag(mapper.writeValueAsString(representations.get(key)));
+                status = replaceGreeting(msg, key, stored.getTag(), receivedGreeting);
+                et = getStoredETag(key);
             } else {
                 LOGGER.log(Level.INFO, inconsistency);
                 status = Response.Status.BAD_REQUEST;
             }
+            if (Response.Status.CONFLICT.equals(status)) {
+                return getConflictResponse(logToken);
+            }
             return Response
                     .status(status)
                     .tag(et)
@@ -266,54 +380,45 @@ public class Greeting {
      * @param logToken a correlation id for a consumer
      * @param eTag the actual instance content version for a given greeting
      * @param greeting the greeting to delete.
-     * @return status, headers etc. to consumer
+     * @param asyncResponse the response, which is resumed when the greeting has been removed
      */
     @DELETE
     @Path("{greeting}")
     @Consumes({"application/json"})
     @ApiOperation(value = "delete a greeting")
-    public Response deleteGreeting(
+    public void deleteGreeting(
+            @Suspended AsyncResponse asyncResponse,
             @Context Request request,
             @HeaderParam("Accept") String accept,
             @HeaderParam("Accept-Language") @Pattern(regexp = "^((\\s*[a-z]{2},{0,1}(-{0,1}[a-z]{2}){0,1})+(;q=0\\.[1-9]){0,1},{0,1})+") String acceptLanguage,
             @HeaderParam("X-Log-Token") @Pattern(regexp = "^[a-zA-Z0-9\\-]{36}$") String logToken,
             @HeaderParam("If-None-Match") String eTag,
             @PathParam("greeting") @Pattern(regexp = "[a-z]*") String greeting) {
-        String key = greeting + "_" + preferredLanguage(acceptLanguage);
-        GreetingRepresentation stored = representations.get(key);
-        ObjectMapper mapper = new HALMapper();
+        responses.execute(asyncResponse, validateOrCreateToken(logToken),
+                () -> deleteGreetingResponse(request, acceptLanguage, logToken, greeting));
+    }
+
+    private Response deleteGreetingResponse(Request request, String acceptLanguage, String logToken, String greeting) {
+        String key = greeting + "_" + preferredLanguage(greeting, acceptLanguage);
+        String tag = representations.getTag(key);
         Response.Status status;
-        if (stored == null) {
+        if (tag == null) {
             LOGGER.log(Level.INFO, "Attempted to delete a non-existing Greeting " + key);
             status = Response.Status.NOT_FOUND;
         } else {
-            try {
-                EntityTag et = getETag(mapper.writeValueAsString(stored));
-                ResponseBuilder builder = request.evaluatePreconditions(et);
-                if (builder == null) {
-                    return Response.status(Response.Status.CONFLICT)
-                        .entity("{\"error\":\"object has been updated, please get newest version\"}")
-                        .header("X-Log-Token", validateOrCreateToken(logToken))
-                        .build();
-                }
-            } catch (JsonProcessingException ex) {
-                LOGGER.log(Level.WARNING, "Delete of object failed " + key);
+            EntityTag et = getETag(tag, CURRENT_VERSION);
+            ResponseBuilder builder = request.evaluatePreconditions(et);
+            if (builder == null || !write(RepresentationContainer.Change.removeIfTag(key, tag))) {
+                return getConflictResponse(logToken);
             }
             LOGGER.log(Level.INFO, "Deleted " + key);
             status = Response.Status.NO_CONTENT;
-            try {
-                EntityTag et = getETag(mapper.writeValueAsString(representations.get(key)));
-                representations.remove(key);
-                LOGGER.log(Level.INFO, "Greetings " + representations.size());
-                return Response
-                    .status(status)
-                    .tag(et)
-                    .header("X-Log-Token", validateOrCreateToken(logToken))
-                    .build();
-
-            } catch (JsonProcessingException pe) {
-                LOGGER.log(Level.WARNING, "Delete of object failed " + key);
-            }
+            LOGGER.log(Level.INFO, "Greetings " + representations.size());
+            return Response
+                .status(status)
+                .tag(et)
+                .header("X-Log-Token", validateOrCreateToken(logToken))
+                .build();
         }
         return Response
                 .status(status)
@@ -324,6 +429,10 @@ public class Greeting {
     /**
      * A Greeting can be updated.
      * <p>
+     * The patch is a single operation or an array of operations, which are applied together to a copy of the
+     * greeting, thus the greeting is changed by every operation or by none of them, and the entity tag of the
+     * changed greeting is returned.
+     * <p>
      * A LogToken can be part of the request and that will be returned in the response. If no LogToken is present in the request a new one is extracted and returned to the
      * consumer. The format for the LogToken is a 36 long string that can consist of a-z, A-Z,0-9 and - In other words: small letters, capital letters and numbers and hyphens
      * <p>
@@ -333,67 +442,68 @@ public class Greeting {
      * @param eTag which is the header "If-None-Match" the etag which sets the expected state for the greeting to be updated
      * @param logToken a correlation id for a consumer
      * @param greeting the greeting to update.
-     * @param patch the patch that is used for updating the greeting
-     * @return status, headers etc. to consumer
+     * @param patch the patch that is used for updating the greeting, an operation or an array of operations read by
+     * {@link com.example.service.patch.JSONPatchReader}
+     * @param asyncResponse the response, which is resumed when the greeting has been updated
      */
     @PATCH
     @Path("{greeting}")
     @Consumes({"application/patch+json", "application/json"})
     @Produces({"application/json"})
     @ApiOperation(value = "update a greeting")
-    public Response updateGreeting(
+    public void updateGreeting(
+            @Suspended AsyncResponse asyncResponse,
             @Context Request request,
             @HeaderParam("Accept") String accept,
             @HeaderParam("Accept-Language") @Pattern(regexp = "^((\\s*[a-z]{2},{0,1}(-{0,1}[a-z]{2}){0,1})+(;q=0\\.[1-9]){0,1},{0,1})+") String acceptLanguage,
             @HeaderParam("If-None-Match") String eTag,
             @HeaderParam("X-Log-Token") @Pattern(regexp = "^[a-zA-Z0-9\\-]{36}$") String logToken,
             @PathParam("greeting") @Pattern(regexp = "[a-z]*") String greeting,
-            String patch) {
-        String key = greeting + "_" + preferredLanguage(acceptLanguage);
-        GreetingRepresentation stored = representations.get(key);
-        if (stored == null) {
+            JSONPatch patch) {
+        responses.execute(asyncResponse, validateOrCreateToken(logToken),
+                () -> updateGreetingResponse(request, acceptLanguage, logToken, greeting, patch));
+    }
+
+    private Response updateGreetingResponse(Request request, String acceptLanguage, String logToken, String greeting, JSONPatch patch) {
+        String key = greeting + "_" + preferredLanguage(greeting, acceptLanguage);
+        RepresentationContainer.Tagged<GreetingRepresentation> tagged = representations.getTagged(key);
+        if (tagged == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
-        } else {
-            ObjectMapper om = new HALMapper();
-            try {
-                EntityTag et = getETag(om.writeValueAsString(stored));
-                ResponseBuilder builder = request.evaluatePreconditions(et);
-                if (builder != null) {
-                    try {
-                        ObjectMapper mapper = new ObjectMapper();
-                        JSONPatchContainer patchR = mapper.readValue(patch, JSONPatchContainer.class);
-                        if (patchR.getOperation().equals("replace")) {
-                            try {
-                                if (!patchR.replaceValue(stored)) {
-                                    return getPatchResponse(Response.Status.BAD_REQUEST, "{\"error\":\"value could not be replaced\"}",
-                                            stored.getSelf().getHref(), logToken);
-                                } else {
-                                    representations.alterchCode();
-                                }
-                            } catch (NoSuchFieldException | IllegalAccessException | IllegalArgumentException | SecurityException ex) {
-                                return getPatchResponse(Response.Status.BAD_REQUEST, "{\"error\":\"value was not replaced\"}",
-                                        stored.getSelf().getHref(), logToken);
-                            }
-                            return getPatchResponse(Response.Status.OK, "{\"status\":\"value is replaced\"}",
-                                    stored.getSelf().getHref(), logToken);
-                        } else {
-                            return getPatchResponse(
-                                    Response.Status.BAD_REQUEST, "{\"error\":\"only operation replace is supported\"}",
-                                    stored.getSelf().getHref(), logToken);
-                        }
-                    } catch (IOException ex) {
-                        Response.status(Response.Status.BAD_REQUEST).build();
-                    }
-                } else {
-                    return getPatchResponse(
-                            Response.Status.CONFLICT, "{\"error\":\"object has been updated, please get newest version\"}",
-                            stored.getSelf().getHref(), logToken);
-                }
-            } catch (JsonProcessingException ex) {
-                LOGGER.log(Level.SEVERE, "Could not map List to json", ex);           
-            }  
         }
-        return Response.status(Response.Status.BAD_REQUEST).build();
+        GreetingRepresentation stored = tagged.getRepresentation();
+        EntityTag et = getETag(tagged.getTag(), CURRENT_VERSION);
+        ResponseBuilder builder = request.evaluatePreconditions(et);
+        if (builder == null) {
+            return getPatchResponse(
+                    Response.Status.CONFLICT, "{\"error\":\"object has been updated, please get newest version\"}",
+                    stored.getSelf().getHref(), logToken);
+        }
+        GreetingRepresentation patched;
+        try {
+            patched = patch.apply(stored);
+        } catch (IllegalArgumentException ex) {
+            return getPatchResponse(Response.Status.BAD_REQUEST,
+                    "{\"error\":\"" + new String(BufferRecyclers.getJsonStringEncoder().quoteAsString(ex.getMessage())) + "\"}",
+                    stored.getSelf().getHref(), logToken);
+        }
+        String tag = tagged.getTag();
+        if (patched != stored) {
+            tag = contentTag(patched);
+            if (!write(RepresentationContainer.Change.addIfTag(key, tagged.getTag(), patched))) {
+                return getPatchResponse(
+                        Response.Status.CONFLICT, "{\"error\":\"object has been updated, please get newest version\"}",
+                        stored.getSelf().getHref(), logToken);
+            }
+        }
+        boolean replaced = !patch.getOperations().isEmpty()
+                && patch.getOperations().stream().allMatch(operation -> "replace".equals(operation.getOperation()));
+        return Response
+                .status(Response.Status.OK)
+                .entity(replaced ? "{\"status\":\"value is replaced\"}" : "{\"status\":\"patch is applied\"}")
+                .tag(getETag(tag, CURRENT_VERSION))
+                .header("Location", stored.getSelf().getHref())
+                .header("X-Log-Token", validateOrCreateToken(logToken))
+                .build();
     }
 
     /**
@@ -422,11 +532,22 @@ public class Greeting {
             @HeaderParam("X-Log-Token") @Pattern(regexp = "^[a-zA-Z0-9\\-]{36}$") String logToken,
             @HeaderParam("If-None-Match") String eTag,
             @PathParam("greeting") @Pattern(regexp = "[a-z]*") String greeting) {
-        return greetingProducers.getOrDefault(accept, this::handle415Unsupported).getResponse(request, accept, acceptLanguage, greeting, logToken);
+        Integer version = GREETING_VERSIONS.negotiate(accept);
+        if (version == null) {
+            return handle415Unsupported(request, accept, acceptLanguage, greeting, logToken);
+        }
+        return greetingProducers.get(version).getResponse(request, accept, acceptLanguage, greeting, logToken);
     }
 
-    private Response getGreetingListG1V2(Request request, String accept, String acceptLanguage, String logToken, String eTag) {
-        EntityTag et = getETag(representations.getChCode());
+    private Response getGreetingListG1V2(Request request, String accept, String acceptLanguage, String logToken, String eTag,
+            GreetingListQuery query) {
+        if (query.isBatch()) {
+            return getGreetingBatchG1V2(request, acceptLanguage, logToken, query);
+        }
+        if (!query.isComplete()) {
+            return getGreetingListPageG1V2(request, logToken, query);
+        }
+        EntityTag et = getListETag(representations.getChCode(), query.href(null));
         ResponseBuilder builder = request.evaluatePreconditions(et);
         if (builder != null) {
             return builder.build();
@@ -435,93 +556,146 @@ public class Greeting {
         int maxAge = 30;
         cacheControl.setMaxAge(maxAge);
         int version = 2;
-        Collection<GreetingRepresentation> greetingsList = representations.values()
-                .stream()
-                .map(gr -> new GreetingRepresentation(gr))
-                .collect(Collectors.toList());
-        GreetingsRepresentation gr = new GreetingsRepresentation("This is the information v2HAL", greetingsList);
-        ObjectMapper halMapper = new HALMapper();
-        String json = "{\"error\":\"could not parse object\"}";
-        try {
-            json = halMapper.writeValueAsString(gr);
-        } catch (JsonProcessingException ex) {
-            LOGGER.log(Level.SEVERE, "Could not map List to json", ex);
+        String variant = "application/hal+json;concept=greetings;v=" + version;
+        byte[] json = representations.getDocument(variant, this::toGreetingListV2);
+        ResponseBuilder response = Response.ok()
+                .entity(json)
+                .tag(et)
+                .type(variant)
+                .cacheControl(cacheControl)
+                .header("X-Log-Token", validateOrCreateToken(logToken));
+        if (isCompressed(json)) {
+            response.entity(representations.getDocument(variant, this::toGreetingListV2, GZIP, CompressionFilter::gzip))
+                    .encoding(GZIP);
         }
+        return response.build();
+    }
+
+    private Response getGreetingListPageG1V2(Request request, String logToken, GreetingListQuery query) {
+        String chCode = representations.getChCode();
+        Collection<GreetingRepresentation> greetings;
+        String self = query.href(query.getAfter());
+        String next = null;
+        String prev = null;
+        if (query.isPaged() || query.isFiltered()) {
+            RepresentationContainer.Page<String, GreetingRepresentation> page = representations.page(query.getCriteria(),
+                    query.getAfter(), query.isPaged() ? query.getLimit() : Integer.MAX_VALUE);
+            greetings = page.getEntries().stream().map(Map.Entry::getValue).collect(Collectors.toList());
+            next = page.hasNext() ? query.href(page.getNext()) : null;
+            prev = page.hasPrevious() ? query.href(page.getPrevious()) : null;
+        } else {
+            greetings = representations.values();
+        }
+        EntityTag et = getListETag(chCode, self);
+        ResponseBuilder builder = request.evaluatePreconditions(et);
+        if (builder != null) {
+            return builder.build();
+        }
+        StreamingOutput json = GreetingListOutput.v2(embeddedWriter(query), linkWriter, "This is the information v2HAL", self,
+                greetings, query.isEmbedded() ? query::project : null, next, prev);
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge(30);
         return Response.ok()
                 .entity(json)
                 .tag(et)
-                .type("application/hal+json;concept=greetings;v=" + version)
+                .type("application/hal+json;concept=greetings;v=2")
                 .cacheControl(cacheControl)
                 .header("X-Log-Token", validateOrCreateToken(logToken))
                 .build();
     }
 
-    private Response getGreetingListG1V1(Request request, String accept, String acceptLanguage, String logToken, String eTag) {
+    /**
+     * the entity tag of a batch is a hash of the entity tags of the greetings found, thus it changes when one of the
+     * greetings changes, and a 304 is given without writing the batch
+     */
+    private Response getGreetingBatchG1V2(Request request, String acceptLanguage, String logToken, GreetingListQuery query) {
+        Batch batch = getBatch(acceptLanguage, query);
+        String self = query.href(null);
+        List<Object> parts = new ArrayList<>(batch.etags.size() + batch.missing.size() + 1);
+        parts.add(self);
+        parts.addAll(batch.etags);
+        parts.addAll(batch.missing);
+        EntityTag et = new EntityTag(ContentHash.of(parts.toArray()), false);
+        ResponseBuilder builder = request.evaluatePreconditions(et);
+        if (builder != null) {
+            return builder.build();
+        }
+        StreamingOutput json = GreetingListOutput.batch(embeddedWriter(query), linkWriter, "This is the information v2HAL", self,
+                batch.greetings, batch.etags, query.isEmbedded() ? query::project : null, batch.missing);
         CacheControl cacheControl = new CacheControl();
-        int maxAge = 30;
-        int version = 1;
-        cacheControl.setMaxAge(maxAge);
+        cacheControl.setMaxAge(30);
         return Response.ok()
-                .entity(getGreetingList(version))
-                .type("application/hal+json;concept=greetings;v=" + version)
+                .entity(json)
+                .tag(et)
+                .type("application/hal+json;concept=greetings;v=2")
                 .cacheControl(cacheControl)
                 .header("X-Log-Token", validateOrCreateToken(logToken))
                 .build();
     }
 
     /**
-     * Implements latest version of the greeting service.
-     * <p>
-     * The consumer roll back by entering the full content-type in the Accept header in this case {@code application/json;concept=greeting;v=1} or more specific and correct as that
-     * is the actual format used. {@code application/hal+json;concept=greeting;v=1}
+     * projected greetings leave out the fields not asked for, other greetings are written as they are stored
      */
-    private Response getGreetingG1V4(Request request, String accept, String acceptLanguage, String greeting, String logToken) {
-        String language = preferredLanguage(acceptLanguage);
-        final String key = greeting + "_" + language;
-        GreetingRepresentation entity = representations.get(key);
-        if (entity == null) {
-            return getNoGreetingFound(logToken);
-        }
-        ObjectMapper mapper = new HALMapper();
-        Date lastModified = getLastModified();
-        EntityTag eTag = getETag(entity.toString());
-        String entityResponse = entity.toString();
+    private ObjectWriter embeddedWriter(GreetingListQuery query) {
+        return query.isProjected() ? projectedWriter : greetingWriter;
+    }
+
+    private byte[] toGreetingListV2(Collection<GreetingRepresentation> greetings) {
+        GreetingsRepresentation gr = new GreetingsRepresentation("This is the information v2HAL", greetings);
         try {
-            eTag = getETag(mapper.writeValueAsString(entity));
-            entityResponse = mapper.writeValueAsString(entity);
+            return greetingsWriter.writeValueAsBytes(gr);
         } catch (JsonProcessingException ex) {
-            LOGGER.log(Level.WARNING, "Could not map entity:\n " + entity.toString(), ex);
-        }
-        ResponseBuilder builder = request.evaluatePreconditions(lastModified, eTag);
-        if (builder != null) {
-            return builder.build();
+            LOGGER.log(Level.SEVERE, "Could not map List to json", ex);
+            return "{\"error\":\"could not parse object\"}".getBytes(CHARSET);
         }
+    }
+
+    private Response getGreetingListG1V1(Request request, String accept, String acceptLanguage, String logToken, String eTag,
+            GreetingListQuery query) {
         CacheControl cacheControl = new CacheControl();
-        int maxAge = 60;
+        int maxAge = 30;
+        int version = 1;
         cacheControl.setMaxAge(maxAge);
+        Collection<GreetingRepresentation> greetings = representations.values();
+        String next = null;
+        String prev = null;
+        if (query.isBatch()) {
+            greetings = getBatch(acceptLanguage, query).greetings;
+        } else if (query.isPaged() || query.isFiltered()) {
+            RepresentationContainer.Page<String, GreetingRepresentation> page = representations.page(query.getCriteria(),
+                    query.getAfter(), query.isPaged() ? query.getLimit() : Integer.MAX_VALUE);
+            greetings = page.getEntries().stream().map(Map.Entry::getValue).collect(Collectors.toList());
+            next = page.hasNext() ? query.href(page.getNext()) : null;
+            prev = page.hasPrevious() ? query.href(page.getPrevious()) : null;
+        }
         return Response.ok()
-                .entity(entityResponse)
-                .type("application/hal+json;concept=greeting;v=4")
+                .entity(GreetingListOutput.v1(greetingsWriter, version, query.href(query.getAfter()), greetings, next, prev))
+                .type("application/hal+json;concept=greetings;v=" + version)
                 .cacheControl(cacheControl)
-                .tag(eTag)
-                .lastModified(lastModified)
                 .header("X-Log-Token", validateOrCreateToken(logToken))
                 .build();
     }
 
+    /**
+     * Implements latest version of the greeting service.
+     * <p>
+     * The consumer roll back by entering the full content-type in the Accept header in this case {@code application/json;concept=greeting;v=1} or more specific and correct as that
+     * is the actual format used. {@code application/hal+json;concept=greeting;v=1}
+     */
+    private Response getGreetingG1V4(Request request, String accept, String acceptLanguage, String greeting, String logToken) {
+        String language = preferredLanguage(greeting, acceptLanguage);
+        return getResponse(request, logToken, greeting + "_" + language, 4, this::toGreetingV4);
+    }
+
     private Response getGreetingG1V3(Request request, String accept, String acceptLanguage, String greeting, String logToken) {
-        String language = preferredLanguage(acceptLanguage);
-        GreetingRepresentation greetingEntity = representations.get(greeting + "_" + language);
-        if (greetingEntity == null) {
-            return getNoGreetingFound(logToken);
-        }
-        return getResponse(request, logToken, greetingEntity.toHAL(), 3);
+        String language = preferredLanguage(greeting, acceptLanguage);
+        return getResponse(request, logToken, greeting + "_" + language, 3, gr -> gr.toHAL().getBytes(CHARSET));
     }
 
     private Response getGreetingG1V2(Request request, String accept, String acceptLanguage, String greeting, String logToken) {
-        String language = preferredLanguage(acceptLanguage);
-        GreetingRepresentation greetingEntity = representations.get(greeting + "_" + language);
-        if (greetingEntity == null) {
+        String language = preferredLanguage(greeting, acceptLanguage);
+        final String key = greeting + "_" + language;
+        if (representations.getTag(key) == null) {
             String entity = "{"
                     + "  \"message\": \"Sorry your greeting does not exist yet!\","
                     + "  \"_links\":{"
@@ -537,15 +711,16 @@ public class Greeting {
                     .header("X-Log-Token", validateOrCreateToken(logToken))
                     .build();
         }
-        return getResponse(request, logToken, greetingEntity.toHATEOAS(), 2);
+        return getResponse(request, logToken, key, 2, gr -> gr.toHATEOAS().getBytes(CHARSET));
     }
 
-    private Response.Status replaceGreeting(final String msg, String key, GreetingRepresentation receivedGreeting) {
-        Response.Status status;
+    private Response.Status replaceGreeting(final String msg, String key, String tag, GreetingRepresentation receivedGreeting) {
         LOGGER.log(Level.INFO, "Parsed Replaceable ", msg);
-        status = Response.Status.OK;
-        representations.add(key, receivedGreeting);
-        return status;
+        if (!write(RepresentationContainer.Change.addIfTag(key, tag, receivedGreeting))) {
+            LOGGER.log(Level.INFO, "Greeting " + key + " was changed while it was replaced");
+            return Response.Status.CONFLICT;
+        }
+        return Response.Status.OK;
     }
 
     private Response.Status createNewGreeting(GreetingRepresentation receivedGreeting, String resource, final String msg, String key, final String inconsistency) {
@@ -554,7 +729,10 @@ public class Greeting {
             LOGGER.log(Level.INFO, "Parsed New ", msg);
             GreetingRepresentation newGreeting = new GreetingRepresentation(receivedGreeting);
             status = Response.Status.CREATED;
-            representations.add(key, newGreeting);
+            if (!write(RepresentationContainer.Change.addIfTag(key, null, newGreeting))) {
+                LOGGER.log(Level.INFO, "Greeting " + key + " was created by another request", msg);
+                status = Response.Status.CONFLICT;
+            }
         } else {
             LOGGER.log(Level.INFO, inconsistency, msg);
             status = Response.Status.BAD_REQUEST;
@@ -562,6 +740,13 @@ public class Greeting {
         return status;
     }
 
+    private Response getConflictResponse(String logToken) {
+        return Response.status(Response.Status.CONFLICT)
+                .entity("{\"error\":\"object has been updated, please get newest version\"}")
+                .header("X-Log-Token", validateOrCreateToken(logToken))
+                .build();
+    }
+
     private Response getPatchResponse(Response.Status status, String entity, String href, String logToken) {
         return Response
                 .status(status)
@@ -571,40 +756,134 @@ public class Greeting {
                 .build();
     }
 
-    private String preferredLanguage(String preferred) {
-        if (preferred == null || preferred.isEmpty()) {
-            return "da";
+    /**
+     * the greetings are kept in memory only, unless the system property {@code greetings.journal} names a
+     * journal file, where every change is stored and from where the greetings are read at startup.
+     * Very large numbers of greetings can be kept encoded in memory using {@code -Dgreetings.container=compact},
+     * see {@link GreetingCodec}.
+     * The greetings are indexed by the criteria and the text searched by the list, see {@link GreetingListQuery}.
+     */
+    private static RepresentationContainer<String, GreetingRepresentation> createRepresentations() {
+        String journal = System.getProperty("greetings.journal");
+        RepresentationStore<String, GreetingRepresentation> store = RepresentationStore.none();
+        if (journal != null) {
+            ObjectMapper mapper = new HALMapper();
+            LOGGER.log(Level.INFO, "Storing greetings in {0}", journal);
+            store = new JournalStore<>(Paths.get(journal), JournalStore.Codec.utf8(),
+                    JournalStore.Codec.json(mapper.readerFor(GreetingRepresentation.class), mapper.writerFor(GreetingRepresentation.class)));
         }
-        String[] languages = preferred.split(",");
-        String[] preferredLanguage = Arrays.stream(languages).filter(s -> !s.contains(";")).toArray(String[]::new);
-        return preferredLanguage[0];
+        GreetingCodec memory = null;
+        if ("compact".equals(System.getProperty("greetings.container"))) {
+            LOGGER.log(Level.INFO, "Keeping greetings encoded in memory");
+            memory = new GreetingCodec();
+        }
+        RepresentationContainer<String, GreetingRepresentation> container = new RepresentationContainer<>(Greeting::contentTag, store, memory);
+        container.index("language", gr -> GreetingListQuery.normalize(gr.getLanguage()));
+        container.index("country", gr -> GreetingListQuery.normalize(gr.getCountry()));
+        container.index("native.language",
+                gr -> gr.getNative() == null ? null : GreetingListQuery.normalize(gr.getNative().getLanguage()));
+        container.textIndex("text", Greeting::searchText);
+        return container;
+    }
+
+    /**
+     * @return the greeting and the title of the greeting, which are searched by the list
+     */
+    private static String searchText(GreetingRepresentation greeting) {
+        String title = greeting.getSelf() == null ? null : greeting.getSelf().getTitle();
+        return Stream.of(greeting.getGreeting(), title).filter(Objects::nonNull).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * @return the greetings by their keys ordered by the keys, which are read as they are when the iteration
+     * reaches them
+     */
+    static Set<Map.Entry<String, GreetingRepresentation>> entries() {
+        return representations.entrySet();
     }
 
-    private String validateOrCreateToken(String token) {
+    /**
+     * writes a change to the greetings and waits until it is durable, concurrent changes are written together.
+     *
+     * @return false if the change was based on a greeting, which has since been changed
+     */
+    private static boolean write(RepresentationContainer.Change<String, GreetingRepresentation> change) {
+        return WRITES.submit(change).join();
+    }
+
+    /**
+     * finds the entity tag of the greeting representation a GET request would return without serializing it,
+     * which allows conditional requests to be answered before the request reaches the resource.
+     *
+     * @return the entity tag or null if the greeting or the requested content-type is unknown
+     */
+    static EntityTag getCurrentETag(String greeting, String accept, String acceptLanguage) {
+        Integer version = GREETING_VERSIONS.negotiate(accept);
+        if (version == null) {
+            return null;
+        }
+        String tag = representations.getTag(greeting + "_" + preferredLanguage(greeting, acceptLanguage));
+        return tag == null ? null : getETag(tag, version);
+    }
+
+    /**
+     * @return the most preferred language of the consumer the greeting exists in, see {@link AcceptLanguage}
+     */
+    private static String preferredLanguage(String greeting, String acceptLanguage) {
+        return AcceptLanguage.resolve(acceptLanguage, language -> representations.getTag(greeting + "_" + language) != null);
+    }
+
+    static String validateOrCreateToken(String token) {
         if (token != null && !"".equals(token)) {
             return token;
         }
         return UUID.randomUUID().toString();
     }
 
-    private Response getResponse(Request request, String logToken, String entity, int version) {
+    /**
+     * the conditional request is evaluated against the entity tag stored with the greeting, thus a 304 response is
+     * given without serializing the greeting, otherwise the pre-serialized variant of the greeting is returned.
+     */
+    private Response getResponse(Request request, String logToken, String key, int version, Function<GreetingRepresentation, byte[]> renderer) {
         Date lastModified = getLastModified();
-        EntityTag eTag = getETag(entity);
+        String tag = representations.getTag(key);
+        if (tag == null) {
+            return getNoGreetingFound(logToken);
+        }
+        EntityTag eTag = getETag(tag, version);
         ResponseBuilder builder = request.evaluatePreconditions(lastModified, eTag);
         if (builder != null) {
             return builder.build();
         }
+        byte[] entity = representations.getVariant(key, GREETING_VARIANT + version, renderer);
+        if (entity == null) {
+            return getNoGreetingFound(logToken);
+        }
         CacheControl cacheControl = new CacheControl();
         int maxAge = 60;
         cacheControl.setMaxAge(maxAge);
-        return Response
+        ResponseBuilder response = Response
                 .ok(entity)
-                .type("application/hal+json;concept=greeting;v=" + version)
+                .type(GREETING_VARIANT + version)
                 .cacheControl(cacheControl)
                 .tag(eTag)
                 .lastModified(lastModified)
-                .header("X-Log-Token", validateOrCreateToken(logToken))
-                .build();
+                .header("X-Log-Token", validateOrCreateToken(logToken));
+        if (isCompressed(entity)) {
+            byte[] compressed = representations.getVariant(key, GREETING_VARIANT + version, renderer, GZIP, CompressionFilter::gzip);
+            if (compressed != null) {
+                response.entity(compressed).encoding(GZIP);
+            }
+        }
+        return response.build();
+    }
+
+    /**
+     * cached entities are sent in their pre-compressed variant to consumers accepting gzip, thus the entity is
+     * compressed once per change and not on every request by the {@link CompressionFilter}
+     */
+    private boolean isCompressed(byte[] entity) {
+        return entity.length >= CompressionFilter.THRESHOLD && CompressionFilter.accepts(acceptEncoding);
     }
 
     private Response getNoGreetingFound(String logToken) {
@@ -627,7 +906,7 @@ public class Greeting {
                 .build();
     }
 
-    private String getGreetingRef(GreetingRepresentation newGreeting) {
+    static String getGreetingRef(GreetingRepresentation newGreeting) {
         String ref = newGreeting.getSelf().getHref();
         String resources = "greetings/";
         int start = ref.indexOf(resources) + resources.length();
@@ -635,43 +914,6 @@ public class Greeting {
         return result;
     }
 
-    private String getGreetingList(int version) {
-        final String template = "{"
-                + "\"greetings\":{"
-                + "\"info\":\"a list containing current greetings\","
-                + "\"_links\":{"
-                + "\"self\":{"
-                + "\"href\":\"/greetings\","
-                + "\"type\":\"application/hal+json;concept=greetinglist;v=" + version + "\","
-                + "\"title\":\"List of Greetings\""
-                + "},"
-                + "\"greetings\":"
-                + "["
-                + getResultingGreetingsList()
-                + "]"
-                + "}"
-                + "}"
-                + "}";
-        return template;
-    }
-
-    private String getResultingGreetingsList() {
-        String result;
-        StringBuilder list = new StringBuilder();
-        representations
-                .entrySet()
-                .stream()
-                .map((entry) -> list
-                .append("{\"href\":\"")
-                .append(entry.getValue().getSelf().getHref())
-                .append("\",\"title\":\"")
-                .append(entry.getValue().getSelf().getTitle())
-                .append("\"},"))
-                .collect(Collectors.joining());
-        result = list.substring(0, list.length() - 1);
-        return result;
-    }
-
     private boolean isRessourceIdCorrect(GreetingRepresentation greeting, String resource) {
         return greeting.getSelf().getHref().contains(resource);
     }
@@ -680,13 +922,55 @@ public class Greeting {
      * using a non-mockable way to get time in an interval of 10 secs to showcase the last modified header so if you are doing this for real and want to use time - pls use Instant
      * and Clock
      */
-    private Date getLastModified() {
+    static Date getLastModified() {
         return Date.from(Instant.ofEpochMilli(1505500000000L));
     }
 
-    private EntityTag getETag(String entity) {
-        if (entity == null) entity = representations.getChCode();
-        return new EntityTag(Integer.toHexString(entity.hashCode()), false);
+    /**
+     * the entity tag of a list or a page of the list is the content hash of the change code of the greetings and
+     * the href of the list, which names every parameter of the query, thus no two variants share a tag
+     */
+    private static EntityTag getListETag(String chCode, String self) {
+        return new EntityTag(ContentHash.of(chCode, self), false);
+    }
+
+    /**
+     * the entity tag of the current version is the tag stored with the greeting, older versions are different
+     * representations of the same greeting and are thus tagged differently.
+     */
+    static EntityTag getETag(String tag, int version) {
+        return new EntityTag(version == CURRENT_VERSION ? tag : tag + "-" + version, false);
+    }
+
+    private EntityTag getStoredETag(String key) {
+        String tag = representations.getTag(key);
+        return tag == null ? null : getETag(tag, CURRENT_VERSION);
+    }
+
+    static String contentTag(GreetingRepresentation greeting) {
+        GreetingNativeRepresentation nativeInfo = greeting.getNative();
+        HALLink self = greeting.getSelf();
+        return ContentHash.of(greeting.getGreeting(), greeting.getLanguage(), greeting.getCountry(),
+                nativeInfo == null ? null : nativeInfo.getLanguage(),
+                nativeInfo == null ? null : nativeInfo.getCountry(),
+                self == null ? null : self.getHref(),
+                self == null ? null : self.getTemplated(),
+                self == null ? null : self.getType(),
+                self == null ? null : self.getDeprecation(),
+                self == null ? null : self.getName(),
+                self == null ? null : self.getProfile(),
+                self == null ? null : self.getTitle(),
+                self == null ? null : self.getHreflang(),
+                self == null ? null : self.getSeen());
+    }
+
+    private byte[] toGreetingV4(GreetingRepresentation entity) {
+        try {
+            return greetingWriter.writeValueAsBytes(entity);
+        } catch (JsonProcessingException ex) {
+            LOGGER.log(Level.WARNING, "Could not map entity:\n " + entity.toString(), ex);
+            return entity.toString().getBytes(CHARSET);
+        }
     }
 
     private void populateRepresentations() {
@@ -742,12 +1026,26 @@ public class Greeting {
         }
     }
 
+    /**
+     * The greetings of a batch found and the names of those not found.
+     */
+    private static final class Batch {
+        private final List<GreetingRepresentation> greetings;
+        private final List<String> etags;
+        private final List<String> missing = new ArrayList<>(0);
+
+        Batch(int size) {
+            greetings = new ArrayList<>(size);
+            etags = new ArrayList<>(size);
+        }
+    }
+
     interface GreetingProducer {
         Response getResponse(Request request, String accept, String language, String greeting, String logToken);
     }
 
     interface GreetingListProducer {
-        Response getResponse(Request request, String accept, String language, String logToken, String eTag);
+        Response getResponse(Request request, String accept, String language, String logToken, String eTag, GreetingListQuery query);
     }
 
     Response handle415Unsupported(Request request, String... params) {
@@ -0,0 +1,416 @@
+package com.example.resource.greeting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.example.RepresentationContainer;
+import com.example.RepresentationMappers;
+import com.example.service.patch.JSONPatch;
+import com.example.service.patch.JSONPatchContainer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+/**
+ * Moves greetings in and out of the service in bulk as newline delimited JSON, one greeting per line.
+ * <p>
+ * The import reads the lines from the request one at a time and hands each greeting to the batched writes
+ * without waiting for it, thus the lines are written together in batches while the following lines are read.
+ * At most {@code -Dgreetings.bulk.window} (default 1024) greetings are waiting to be written, and the results are
+ * in the order of the lines.
+ * <p>
+ * Nothing is written to the response before the whole request has been read, as an HTTP/1.1 client such as
+ * {@code HttpURLConnection} or the Jersey client sends the whole request before it reads the response, thus
+ * results written while the request is read would fill the buffers of the connection and block both ends. The
+ * results are held in memory up to {@code -Dgreetings.bulk.spill} (default 1048576) bytes and beyond that in a
+ * temporary file, which is removed when the results have been written, thus every client is supported and
+ * neither the request nor the response is held in memory.
+ * <p>
+ * The export writes the greetings ordered by their keys directly to the response, thus the export of one service
+ * can be imported by another.
+ */
+@Path("/")
+@Api(value = "/greetings:bulk", tags = {"greetings"})
+public class GreetingBulk {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private static final Logger LOGGER = Logger.getLogger(GreetingBulk.class.getName());
+    private static final int WINDOW = Integer.getInteger("greetings.bulk.window", 1024);
+    private static final int LINE_LIMIT = Integer.getInteger("greetings.bulk.line.limit", 64 * 1024);
+    private static final int SPILL = Integer.getInteger("greetings.bulk.spill", 1024 * 1024);
+    private static final Pattern GREETING = Pattern.compile("^[a-z0-9\\-]+$");
+    private static final ObjectMapper RESULTS = new ObjectMapper();
+
+    private final ObjectReader greetingReader;
+    private final ObjectWriter greetingWriter;
+
+    @Inject
+    public GreetingBulk(RepresentationMappers mappers) {
+        greetingReader = mappers.reader(GreetingRepresentation.class).with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+        greetingWriter = mappers.writer(GreetingRepresentation.class);
+    }
+
+    /**
+     * Creates a greeting per line of the request, a line is a greeting as it is posted to {@code /greetings}.
+     * <p>
+     * The greeting is kept in the language of the {@code hreflang} of its self link, or in the most preferred
+     * language of the {@code Accept-Language} if the link has no {@code hreflang}. An existing greeting is not
+     * replaced. The response has a line per greeting, e.g.
+     * {@code {"line":1,"status":201,"href":"/greetings/hallo","etag":"\"3f1c0a\""}}, where the status is 201 if the
+     * greeting was created, 400 if the line is not a greeting or its {@code hreflang} is not a language, 409 if the
+     * greeting exists and 413 if the line is longer than {@code -Dgreetings.bulk.line.limit} (default 65536) bytes.
+     * Empty lines are skipped.
+     *
+     * @param acceptLanguage the language of greetings without a {@code hreflang}
+     * @param logToken a correlation id for a consumer
+     * @param lines the greetings as newline delimited JSON
+     * @return the results of the lines as newline delimited JSON
+     */
+    @POST
+    @Path("greetings:bulk")
+    @Consumes(NDJSON)
+    @Produces(NDJSON)
+    @ApiOperation(value = "create greetings from newline delimited JSON")
+    public Response importGreetings(
+            @HeaderParam("Accept-Language") String acceptLanguage,
+            @HeaderParam("X-Log-Token") String logToken,
+            InputStream lines) {
+        String language = AcceptLanguage.preferred(acceptLanguage);
+        StreamingOutput results = output -> importGreetings(new Lines(lines, LINE_LIMIT), language, output);
+        return Response.ok(results)
+                .type(NDJSON)
+                .header("X-Log-Token", Greeting.validateOrCreateToken(logToken))
+                .build();
+    }
+
+    /**
+     * @param logToken a correlation id for a consumer
+     * @return every greeting as newline delimited JSON, a line per greeting as it is returned by
+     * {@code /greetings/{greeting}}, where the {@code hreflang} of the self link is the language of the greeting
+     */
+    @GET
+    @Path("greetings:export")
+    @Produces(NDJSON)
+    @ApiOperation(value = "all greetings as newline delimited JSON")
+    public Response exportGreetings(@HeaderParam("X-Log-Token") String logToken) {
+        Iterable<GreetingRepresentation> greetings = () -> Greeting.entries().stream()
+                .map(entry -> withLanguage(entry.getValue(), entry.getKey().substring(entry.getKey().lastIndexOf('_') + 1)))
+                .iterator();
+        return Response.ok(GreetingListOutput.ndjson(greetingWriter, greetings))
+                .type(NDJSON)
+                .header("X-Log-Token", Greeting.validateOrCreateToken(logToken))
+                .build();
+    }
+
+    /**
+     * the language of a greeting is part of its key, a greeting without a {@code hreflang} is exported with the
+     * language as its {@code hreflang}, thus it is imported in the same language
+     */
+    private static GreetingRepresentation withLanguage(GreetingRepresentation greeting, String language) {
+        if (greeting.getSelf() == null || greeting.getSelf().getHreflang() != null) {
+            return greeting;
+        }
+        return JSONPatch.of(new JSONPatchContainer("add", "/_links/self/hreflang", language)).apply(greeting);
+    }
+
+    private void importGreetings(Lines lines, String language, OutputStream output) throws IOException {
+        Deque<Result> pending = new ArrayDeque<>();
+        int[] counts = new int[2];
+        try (Spool results = new Spool(SPILL)) {
+            try (JsonGenerator generator = RESULTS.getFactory().createGenerator(results, JsonEncoding.UTF8)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                int number = 0;
+                while (lines.next()) {
+                    number++;
+                    if (!lines.isTooLong() && lines.isBlank()) {
+                        continue;
+                    }
+                    pending.add(submit(number, lines, language));
+                    if (pending.size() >= WINDOW) {
+                        write(generator, pending.remove(), counts);
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    write(generator, pending.remove(), counts);
+                }
+            }
+            results.writeTo(output);
+        }
+        LOGGER.log(Level.INFO, "Imported {0} greetings, {1} lines were not imported", new Object[]{counts[0], counts[1]});
+    }
+
+    private Result submit(int number, Lines lines, String language) {
+        if (lines.isTooLong()) {
+            return new Result(number, 413, "the line is longer than " + LINE_LIMIT + " bytes");
+        }
+        GreetingRepresentation greeting;
+        try {
+            greeting = greetingReader.readValue(lines.bytes(), lines.offset(), lines.length());
+        } catch (IOException e) {
+            return new Result(number, 400, "the line is not a greeting");
+        }
+        if (greeting.getSelf() == null || greeting.getSelf().getHref() == null || !greeting.getSelf().getHref().contains("greetings/")) {
+            return new Result(number, 400, "the greeting has no self link to greetings/{greeting}");
+        }
+        String ref = Greeting.getGreetingRef(greeting);
+        if (!GREETING.matcher(ref).matches()) {
+            return new Result(number, 400, "the greeting " + ref + " is not a name of a greeting");
+        }
+        String hreflang = greeting.getSelf().getHreflang();
+        if (hreflang != null && !hreflang.isEmpty() && !AcceptLanguage.isLanguage(hreflang.toLowerCase(Locale.ROOT))) {
+            return new Result(number, 400, "the hreflang " + hreflang + " is not a language");
+        }
+        String key = ref + "_" + (hreflang == null || hreflang.isEmpty() ? language : hreflang.toLowerCase(Locale.ROOT));
+        Result result = new Result(number, greeting.getSelf().getHref(), Greeting.contentTag(greeting));
+        result.written = Greeting.WRITES.submit(RepresentationContainer.Change.addIfTag(key, null, new GreetingRepresentation(greeting)));
+        return result;
+    }
+
+    private static void write(JsonGenerator generator, Result result, int[] counts) throws IOException {
+        if (result.written != null) {
+            try {
+                if (result.written.join()) {
+                    result.status = 201;
+                } else {
+                    result.status = 409;
+                    result.error = "the greeting exists";
+                }
+            } catch (CompletionException e) {
+                LOGGER.log(Level.WARNING, "Could not write the greeting of line " + result.line, e);
+                result.status = 500;
+                result.error = "the greeting could not be written";
+            }
+        }
+        counts[result.status == 201 ? 0 : 1]++;
+        generator.writeStartObject();
+        generator.writeNumberField("line", result.line);
+        generator.writeNumberField("status", result.status);
+        if (result.href != null) {
+            generator.writeStringField("href", result.href);
+        }
+        if (result.status == 201) {
+            generator.writeStringField("etag", Greeting.getETag(result.tag, Greeting.CURRENT_VERSION).toString());
+        }
+        if (result.error != null) {
+            generator.writeStringField("error", result.error);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * The outcome of a line, which is known when the greeting of the line has been written.
+     */
+    private static final class Result {
+        private final int line;
+        private final String href;
+        private final String tag;
+        private int status;
+        private String error;
+        private CompletableFuture<Boolean> written;
+
+        Result(int line, int status, String error) {
+            this(line, null, null);
+            this.status = status;
+            this.error = error;
+        }
+
+        Result(int line, String href, String tag) {
+            this.line = line;
+            this.href = href;
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Holds the results in memory up to a limit and beyond that in a temporary file, until the request has been
+     * read and the results can be written to the response.
+     */
+    static final class Spool extends OutputStream {
+        private final int limit;
+        private final ByteArrayOutputStream memory = new ByteArrayOutputStream(8192);
+        private File file;
+        private OutputStream spilled;
+
+        Spool(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target(1).write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target(len).write(b, off, len);
+        }
+
+        private OutputStream target(int length) throws IOException {
+            if (spilled == null && memory.size() + length > limit) {
+                file = File.createTempFile("greetings-bulk", ".ndjson");
+                spilled = Files.newOutputStream(file.toPath());
+                memory.writeTo(spilled);
+                memory.reset();
+            }
+            return spilled == null ? memory : spilled;
+        }
+
+        /**
+         * @return true if the results are kept in a temporary file
+         */
+        boolean isSpilled() {
+            return spilled != null;
+        }
+
+        /**
+         * @param output the stream receiving the results held so far
+         */
+        void writeTo(OutputStream output) throws IOException {
+            if (spilled == null) {
+                memory.writeTo(output);
+            } else {
+                spilled.flush();
+                Files.copy(file.toPath(), output);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (spilled != null) {
+                try {
+                    spilled.close();
+                } finally {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the lines of a stream into a reused buffer, a line, which is longer than the limit, is skipped and
+     * reported as too long.
+     */
+    static final class Lines {
+        private final InputStream in;
+        private final int limit;
+        private byte[] buffer;
+        private int start;
+        private int end;
+        private boolean eof;
+        private int offset;
+        private int length;
+        private boolean tooLong;
+
+        Lines(InputStream in, int limit) {
+            this.in = in;
+            this.limit = limit;
+            this.buffer = new byte[Math.min(8192, limit + 1)];
+        }
+
+        /**
+         * @return true if a line has been read, false at the end of the stream
+         */
+        boolean next() throws IOException {
+            boolean skipping = false;
+            int scanned = start;
+            while (true) {
+                while (scanned < end) {
+                    if (buffer[scanned++] == '\n') {
+                        return found(scanned - 1, scanned, skipping);
+                    }
+                }
+                if (end - start > limit) {
+                    skipping = true;
+                    start = 0;
+                    end = 0;
+                    scanned = 0;
+                }
+                if (eof) {
+                    return start < end || skipping ? found(end, end, skipping) : false;
+                }
+                if (start > 0) {
+                    System.arraycopy(buffer, start, buffer, 0, end - start);
+                    scanned -= start;
+                    end -= start;
+                    start = 0;
+                }
+                if (end == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.min(buffer.length * 2, limit + 1));
+                }
+                int read = in.read(buffer, end, buffer.length - end);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    end += read;
+                }
+            }
+        }
+
+        private boolean found(int lineEnd, int next, boolean skipped) {
+            offset = start;
+            length = lineEnd - start;
+            if (length > 0 && buffer[offset + length - 1] == '\r') {
+                length--;
+            }
+            tooLong = skipped;
+            start = next;
+            return true;
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        boolean isBlank() {
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] != ' ' && buffer[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        byte[] bytes() {
+            return buffer;
+        }
+
+        int offset() {
+            return offset;
+        }
+
+        int length() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.resource.greeting;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+import com.example.JournalStore;
+import com.example.StringDictionary;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+
+/**
+ * A compact encoding of greetings kept in memory.
+ * <p>
+ * The strings repeated across greetings, the languages, countries and the hreflang and type of the link, are
+ * numbers in a dictionary shared by all greetings, whereas the greeting and the href, title and name of the link,
+ * which differ per greeting, are kept as UTF-8. The time the link was seen is kept as seconds and nanoseconds.
+ * Numbers and lengths are variable length integers, thus a greeting takes up little more than the length of its
+ * texts in a single array instead of a dozen objects.
+ */
+final class GreetingCodec implements JournalStore.Codec<GreetingRepresentation> {
+
+    private static final int NONE = 0;
+    private static final int INSTANT = 1;
+    private static final int TEXT = 2;
+    private static final MethodHandle TEMPLATED = linkSetter("templated");
+    private static final MethodHandle SEEN = linkSetter("seen");
+
+    private final StringDictionary dictionary = new StringDictionary();
+
+    @Override
+    public byte[] encode(GreetingRepresentation greeting) {
+        Output out = new Output();
+        out.string(greeting.getGreeting());
+        out.number(dictionary.id(greeting.getLanguage()));
+        out.number(dictionary.id(greeting.getCountry()));
+        GreetingNativeRepresentation nativeInfo = greeting.getNative();
+        out.number(nativeInfo == null ? 0 : 1);
+        if (nativeInfo != null) {
+            out.number(dictionary.id(nativeInfo.getLanguage()));
+            out.number(dictionary.id(nativeInfo.getCountry()));
+        }
+        HALLink self = greeting.getSelf();
+        out.number(self == null ? 0 : 1);
+        if (self != null) {
+            out.string(self.getHref());
+            out.string(self.getTitle());
+            out.string(self.getName());
+            out.number(dictionary.id(self.getHreflang()));
+            out.number(dictionary.id(self.getType()));
+            out.number(self.getTemplated() == null ? 0 : self.getTemplated() ? 2 : 1);
+            out.string(self.getDeprecation() == null ? null : self.getDeprecation().toString());
+            out.string(self.getProfile() == null ? null : self.getProfile().toString());
+            seen(out, self.getSeen());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public GreetingRepresentation decode(byte[] bytes) {
+        Input in = new Input(bytes);
+        String greeting = in.string();
+        String language = dictionary.get(in.number());
+        String country = dictionary.get(in.number());
+        GreetingNativeRepresentation nativeInfo = null;
+        if (in.number() == 1) {
+            nativeInfo = new GreetingNativeRepresentation(dictionary.get(in.number()), dictionary.get(in.number()));
+        }
+        HALLink self = null;
+        if (in.number() == 1) {
+            HALLink.Builder link = new HALLink.Builder(in.string());
+            link.title(in.string());
+            link.name(in.string());
+            link.hreflang(dictionary.get(in.number()));
+            link.type(dictionary.get(in.number()));
+            int templated = in.number();
+            if (templated != 0) {
+                link.templated(templated == 2);
+            }
+            String deprecation = in.string();
+            if (deprecation != null) {
+                link.deprecation(url(deprecation));
+            }
+            String profile = in.string();
+            if (profile != null) {
+                link.profile(URI.create(profile));
+            }
+            int seen = in.number();
+            if (seen == INSTANT) {
+                link.seen(Instant.ofEpochSecond(in.longNumber(), in.number()));
+            }
+            self = link.build();
+            if (seen == TEXT || templated == 0) {
+                restore(self, templated != 0, seen == TEXT ? in.string() : null);
+            }
+        }
+        return new GreetingRepresentation(greeting, language, country, nativeInfo, self);
+    }
+
+    /**
+     * @return the number of distinct strings in the dictionary
+     */
+    int dictionarySize() {
+        return dictionary.size();
+    }
+
+    /**
+     * keeps the time as seconds and nanoseconds if it is written the way an instant writes itself, as the
+     * time must be decoded to the same text
+     */
+    private static void seen(Output out, String seen) {
+        if (seen == null) {
+            out.number(NONE);
+            return;
+        }
+        try {
+            Instant instant = Instant.parse(seen);
+            if (instant.toString().equals(seen) && instant.getEpochSecond() >= 0) {
+                out.number(INSTANT);
+                out.longNumber(instant.getEpochSecond());
+                out.number(instant.getNano());
+                return;
+            }
+        } catch (DateTimeParseException e) {
+            // kept as text
+        }
+        out.number(TEXT);
+        out.string(seen);
+    }
+
+    /**
+     * the builder only takes a time written as an instant and always sets templated, whereas a link read from a
+     * request may carry any text or leave templated out, which is the case for most stored links, such a link is
+     * given the fields of the request directly, as Jackson does when reading the request, through setters, which
+     * are looked up once
+     */
+    private static void restore(HALLink link, boolean hasTemplated, String seen) {
+        try {
+            if (!hasTemplated) {
+                TEMPLATED.invokeExact(link, (Boolean) null);
+            }
+            if (seen != null) {
+                SEEN.invokeExact(link, seen);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not decode the link " + link.getHref(), e);
+        }
+    }
+
+    private static MethodHandle linkSetter(String name) {
+        try {
+            Field field = HALLink.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflectSetter(field);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("The link has no field " + name, e);
+        }
+    }
+
+    private static URL url(String url) {
+        try {
+            return new URL(url);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Could not decode the deprecation " + url, e);
+        }
+    }
+
+    /**
+     * Writes unsigned variable length integers, 7 bits per byte, and strings as their length plus one followed by
+     * their UTF-8 bytes, where length 0 is the null string.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        Output() {
+            super(64);
+        }
+
+        void number(int value) {
+            longNumber(value);
+        }
+
+        void longNumber(long value) {
+            long rest = value;
+            while ((rest & ~0x7FL) != 0) {
+                write((int) (rest & 0x7F) | 0x80);
+                rest >>>= 7;
+            }
+            write((int) rest);
+        }
+
+        void string(String value) {
+            if (value == null) {
+                number(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            number(utf8.length + 1);
+            write(utf8, 0, utf8.length);
+        }
+
+        @Override
+        public synchronized byte[] toByteArray() {
+            return count == buf.length ? buf : Arrays.copyOf(buf, count);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int number() {
+            return (int) longNumber();
+        }
+
+        long longNumber() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        String string() {
+            int length = number() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.resource.greeting;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+/**
+ * Writes the greetings list directly to the response one greeting at a time, thus the response is sent chunked.
+ * The greetings of a version 2 list are taken once from the live view of the container, thus the links and the
+ * embedded greetings are the same greetings even when a greeting is changed while the list is written, and a
+ * greeting kept encoded is decoded once.
+ * <p>
+ * The output is the same as serializing a {@link GreetingsRepresentation} for version 2 and the same as the
+ * former string template for version 1.
+ * A batch of greetings is written as version 2, where each embedded greeting carries its entity tag.
+ */
+final class GreetingListOutput {
+
+    private GreetingListOutput() {
+        // reduced constructor scope.
+    }
+
+    /**
+     * @param greetingWriter the HAL writer for a greeting
+     * @param linkWriter the HAL writer for a link
+     * @param info information about the list
+     * @param self the href of the list or the page of the list
+     * @param greetings the greetings linked to
+     * @param projection the projection of the embedded greetings or null if the list contains links only
+     * @param next the href of the next page or null
+     * @param prev the href of the previous page or null
+     * @return the version 2 list
+     */
+    static StreamingOutput v2(ObjectWriter greetingWriter, ObjectWriter linkWriter, String info, String self,
+            Collection<GreetingRepresentation> greetings, UnaryOperator<GreetingRepresentation> projection, String next, String prev) {
+        return v2(greetingWriter, linkWriter, info, self, greetings, projection, next, prev, null, null);
+    }
+
+    /**
+     * @param greetingWriter the HAL writer for a greeting
+     * @param linkWriter the HAL writer for a link
+     * @param info information about the list
+     * @param self the href of the batch
+     * @param greetings the greetings found
+     * @param etags the entity tags of the greetings found in the same order, each is embedded as {@code etag} of
+     * its greeting
+     * @param projection the projection of the embedded greetings or null if the list contains links only
+     * @param missing the names of the greetings, which were not found, listed as {@code missing} unless empty
+     * @return the version 2 list of a batch
+     */
+    static StreamingOutput batch(ObjectWriter greetingWriter, ObjectWriter linkWriter, String info, String self,
+            List<GreetingRepresentation> greetings, List<String> etags, UnaryOperator<GreetingRepresentation> projection,
+            List<String> missing) {
+        return v2(greetingWriter, linkWriter, info, self, greetings, projection, null, null, etags, missing);
+    }
+
+    private static StreamingOutput v2(ObjectWriter greetingWriter, ObjectWriter linkWriter, String info, String self,
+            Collection<GreetingRepresentation> greetings, UnaryOperator<GreetingRepresentation> projection, String next, String prev,
+            List<String> etags, List<String> missing) {
+        ObjectWriter greetingValues = greetingWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        ObjectWriter linkValues = linkWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return output -> {
+            List<GreetingRepresentation> page = greetings instanceof List
+                    ? (List<GreetingRepresentation>) greetings : new ArrayList<>(greetings);
+            try (JsonGenerator generator = createGenerator(greetingWriter, output)) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("_links");
+                generator.writeArrayFieldStart("greetings");
+                for (GreetingRepresentation greeting : page) {
+                    linkValues.writeValue(generator, GreetingsRepresentation.greetingLink(greeting));
+                }
+                generator.writeEndArray();
+                if (next != null) {
+                    generator.writeFieldName("next");
+                    linkValues.writeValue(generator, GreetingsRepresentation.pageLink(next));
+                }
+                if (prev != null) {
+                    generator.writeFieldName("prev");
+                    linkValues.writeValue(generator, GreetingsRepresentation.pageLink(prev));
+                }
+                generator.writeFieldName("self");
+                linkValues.writeValue(generator, GreetingsRepresentation.selfLink(self));
+                generator.writeEndObject();
+                if (projection != null) {
+                    generator.writeObjectFieldStart("_embedded");
+                    generator.writeArrayFieldStart("greetings");
+                    Iterator<String> etag = etags == null ? null : etags.iterator();
+                    for (GreetingRepresentation greeting : page) {
+                        if (etag == null) {
+                            greetingValues.writeValue(generator, projection.apply(greeting));
+                        } else {
+                            writeTagged(generator, greetingValues, projection.apply(greeting), etag.next());
+                        }
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                }
+                if (missing != null && !missing.isEmpty()) {
+                    generator.writeArrayFieldStart("missing");
+                    for (String name : missing) {
+                        generator.writeString(name);
+                    }
+                    generator.writeEndArray();
+                }
+                generator.writeStringField("info", info);
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    /**
+     * writes the greeting as the writer does followed by its entity tag
+     */
+    private static void writeTagged(JsonGenerator generator, ObjectWriter greetingValues, GreetingRepresentation greeting,
+            String etag) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(generator.getCodec(), false);
+        greetingValues.writeValue(buffer, greeting);
+        try (JsonParser parser = buffer.asParser()) {
+            parser.nextToken();
+            generator.writeStartObject();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                generator.copyCurrentStructure(parser);
+            }
+            generator.writeStringField("etag", etag);
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * @param writer a writer, which factory is used for the output
+     * @param version the version of the list
+     * @param self the href of the list or the page of the list
+     * @param greetings the greetings linked to
+     * @param next the href of the next page or null
+     * @param prev the href of the previous page or null
+     * @return the version 1 list
+     */
+    static StreamingOutput v1(ObjectWriter writer, int version, String self,
+            Collection<GreetingRepresentation> greetings, String next, String prev) {
+        return output -> {
+            try (JsonGenerator generator = createGenerator(writer, output)) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("greetings");
+                generator.writeStringField("info", "a list containing current greetings");
+                generator.writeObjectFieldStart("_links");
+                generator.writeObjectFieldStart("self");
+                generator.writeStringField("href", self);
+                generator.writeStringField("type", "application/hal+json;concept=greetinglist;v=" + version);
+                generator.writeStringField("title", "List of Greetings");
+                generator.writeEndObject();
+                if (next != null) {
+                    generator.writeObjectFieldStart("next");
+                    generator.writeStringField("href", next);
+                    generator.writeEndObject();
+                }
+                if (prev != null) {
+                    generator.writeObjectFieldStart("prev");
+                    generator.writeStringField("href", prev);
+                    generator.writeEndObject();
+                }
+                generator.writeArrayFieldStart("greetings");
+                for (GreetingRepresentation greeting : greetings) {
+                    generator.writeStartObject();
+                    generator.writeStringField("href", greeting.getSelf().getHref());
+                    generator.writeStringField("title", greeting.getSelf().getTitle());
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    /**
+     * @param greetingWriter the HAL writer for a greeting
+     * @param greetings the greetings to write
+     * @return the greetings as newline delimited JSON, one greeting per line
+     */
+    static StreamingOutput ndjson(ObjectWriter greetingWriter, Iterable<GreetingRepresentation> greetings) {
+        ObjectWriter greetingValues = greetingWriter.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return output -> {
+            try (JsonGenerator generator = createGenerator(greetingWriter, output)) {
+                generator.setRootValueSeparator(null);
+                for (GreetingRepresentation greeting : greetings) {
+                    greetingValues.writeValue(generator, greeting);
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+    }
+
+    private static JsonGenerator createGenerator(ObjectWriter writer, OutputStream output) throws IOException {
+        JsonGenerator generator = writer.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.resource.greeting;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The paging and projection asked for by a consumer of the greetings list.
+ * <p>
+ * A page is addressed by a limit and an opaque cursor, which is the encoded key of the last greeting on the
+ * preceding page. The fields limit the properties of the embedded greetings to the ones listed, the links of
+ * a greeting are always included. If embedded is false the list contains the links to the greetings only.
+ * <p>
+ * The list can be limited to the greetings having a given language, country or native language, which are
+ * found using the indexes of the same names. The values are compared ignoring case. The list can be searched
+ * using {@code q}, which matches greetings having words in their greeting or title starting with every word of
+ * {@code q}, found using the {@code text} index.
+ * <p>
+ * A batch of named greetings is asked for by {@code ids}, e.g. {@code ids=hallo,hello}, where each greeting is
+ * read in the most preferred language it exists in, which cannot be combined with paging or the criteria.
+ */
+final class GreetingListQuery {
+
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+    private static final List<String> FIELDS = Arrays.asList("greeting", "language", "country", "native");
+    /** the names of the indexes of the greetings limiting the list */
+    static final List<String> CRITERIA = Arrays.asList("language", "country", "native.language", "text");
+    private static final String TEXT = "text";
+    private static final Pattern ID = Pattern.compile("^[a-z0-9\\-]+$");
+    private static final GreetingListQuery COMPLETE = new GreetingListQuery(null, null, null, true, Collections.emptyMap(), null);
+
+    private final Integer limit;
+    private final String after;
+    private final Set<String> fields;
+    private final boolean embedded;
+    private final Map<String, String> criteria;
+    private final List<String> ids;
+
+    private GreetingListQuery(Integer limit, String after, Set<String> fields, boolean embedded, Map<String, String> criteria,
+            List<String> ids) {
+        this.limit = limit;
+        this.after = after;
+        this.fields = fields;
+        this.embedded = embedded;
+        this.criteria = criteria;
+        this.ids = ids;
+    }
+
+    /**
+     * @param limit the maximum number of greetings in the page or null
+     * @param cursor the cursor from a next or prev link or null
+     * @param fields a comma separated list of the greeting properties to embed or null
+     * @param embedded false if only links should be included or null
+     * @return the query
+     * @throws IllegalArgumentException if the limit is out of range or the cursor or one of the fields is unknown
+     */
+    static GreetingListQuery of(String limit, String cursor, String fields, String embedded) {
+        return of(limit, cursor, fields, embedded, null, null, null, null);
+    }
+
+    /**
+     * @param limit the maximum number of greetings in the page or null
+     * @param cursor the cursor from a next or prev link or null
+     * @param fields a comma separated list of the greeting properties to embed or null
+     * @param embedded false if only links should be included or null
+     * @param language the language of the greetings or null
+     * @param country the country of the greetings or null
+     * @param nativeLanguage the native language of the greetings or null
+     * @param text the beginnings of the words searched for in the greetings or null
+     * @return the query
+     * @throws IllegalArgumentException if the limit is out of range or the cursor or one of the fields is unknown
+     */
+    static GreetingListQuery of(String limit, String cursor, String fields, String embedded,
+            String language, String country, String nativeLanguage, String text) {
+        return of(limit, cursor, fields, embedded, language, country, nativeLanguage, text, null);
+    }
+
+    /**
+     * @param limit the maximum number of greetings in the page or null
+     * @param cursor the cursor from a next or prev link or null
+     * @param fields a comma separated list of the greeting properties to embed or null
+     * @param embedded false if only links should be included or null
+     * @param language the language of the greetings or null
+     * @param country the country of the greetings or null
+     * @param nativeLanguage the native language of the greetings or null
+     * @param text the beginnings of the words searched for in the greetings or null
+     * @param ids a comma separated list of the names of the greetings in a batch or null
+     * @return the query
+     * @throws IllegalArgumentException if the limit is out of range, the cursor or one of the fields is unknown or
+     * the ids are malformed, more than the maximum limit or combined with paging or criteria
+     */
+    static GreetingListQuery of(String limit, String cursor, String fields, String embedded,
+            String language, String country, String nativeLanguage, String text, String ids) {
+        Map<String, String> criteria = new LinkedHashMap<>();
+        String[] values = {language, country, nativeLanguage, text};
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null && !values[i].trim().isEmpty()) {
+                criteria.put(CRITERIA.get(i), normalize(values[i]));
+            }
+        }
+        if (limit == null && cursor == null && fields == null && embedded == null && criteria.isEmpty() && ids == null) {
+            return COMPLETE;
+        }
+        List<String> batch = null;
+        if (ids != null) {
+            if (limit != null || cursor != null || !criteria.isEmpty()) {
+                throw new IllegalArgumentException("ids cannot be combined with limit, cursor or criteria");
+            }
+            batch = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(ids.split(",", -1))));
+            for (String id : batch) {
+                if (!ID.matcher(id).matches()) {
+                    throw new IllegalArgumentException("ids must be names of greetings separated by commas, was " + ids);
+                }
+            }
+            if (batch.size() > MAX_LIMIT) {
+                throw new IllegalArgumentException("ids must be at most " + MAX_LIMIT + " greetings, was " + batch.size());
+            }
+        }
+        Set<String> projection = null;
+        if (fields != null) {
+            projection = new LinkedHashSet<>(Arrays.asList(fields.split(",")));
+            if (!FIELDS.containsAll(projection)) {
+                throw new IllegalArgumentException("unknown field in " + fields);
+            }
+        }
+        if (embedded != null && !"true".equals(embedded) && !"false".equals(embedded)) {
+            throw new IllegalArgumentException("embedded must be true or false, was " + embedded);
+        }
+        Integer pageSize = limit == null ? null : Integer.valueOf(limit);
+        if (pageSize != null && (pageSize < 1 || pageSize > MAX_LIMIT)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT + ", was " + limit);
+        }
+        String key = cursor == null ? null : new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        if (pageSize == null && key != null) {
+            pageSize = DEFAULT_LIMIT;
+        }
+        return new GreetingListQuery(pageSize, key, projection == null ? null : Collections.unmodifiableSet(projection),
+                !"false".equals(embedded), Collections.unmodifiableMap(criteria),
+                batch == null ? null : Collections.unmodifiableList(batch));
+    }
+
+    /**
+     * @param value a language or country of a greeting
+     * @return the value as it is kept in the index
+     */
+    static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return true if the complete list with every greeting embedded is asked for
+     */
+    boolean isComplete() {
+        return this == COMPLETE;
+    }
+
+    boolean isPaged() {
+        return limit != null;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the key of the last greeting on the preceding page or null for the first page
+     */
+    String getAfter() {
+        return after;
+    }
+
+    boolean isEmbedded() {
+        return embedded;
+    }
+
+    /**
+     * @return true if the list is limited to greetings having a language, country or native language
+     */
+    boolean isFiltered() {
+        return !criteria.isEmpty();
+    }
+
+    /**
+     * @return true if the embedded greetings are limited to some of their fields
+     */
+    boolean isProjected() {
+        return fields != null;
+    }
+
+    /**
+     * @return true if a batch of named greetings is asked for
+     */
+    boolean isBatch() {
+        return ids != null;
+    }
+
+    /**
+     * @return the distinct names of the greetings in the batch in the order they were asked for
+     */
+    List<String> getIds() {
+        return ids;
+    }
+
+    /**
+     * @return the value the greetings must have per name of an index
+     */
+    Map<String, String> getCriteria() {
+        return criteria;
+    }
+
+    /**
+     * @param greeting the stored greeting
+     * @return the greeting containing the fields asked for
+     */
+    GreetingRepresentation project(GreetingRepresentation greeting) {
+        if (fields == null) {
+            return greeting;
+        }
+        return new ProjectedGreetingRepresentation(
+                fields.contains("greeting") ? greeting.getGreeting() : null,
+                fields.contains("language") ? greeting.getLanguage() : null,
+                fields.contains("country") ? greeting.getCountry() : null,
+                fields.contains("native") ? greeting.getNative() : null,
+                greeting.getSelf());
+    }
+
+    /**
+     * @param key the key of the last greeting on the preceding page or null for the first page
+     * @return the href of the page keeping the limit, fields and embedded of this query
+     */
+    String href(String key) {
+        StringBuilder href = new StringBuilder("/greetings");
+        char separator = '?';
+        if (limit != null) {
+            href.append(separator).append("limit=").append(limit);
+            separator = '&';
+        }
+        if (key != null) {
+            href.append(separator).append("cursor=").append(cursor(key));
+            separator = '&';
+        }
+        if (fields != null) {
+            href.append(separator).append("fields=").append(String.join(",", fields));
+            separator = '&';
+        }
+        if (!embedded) {
+            href.append(separator).append("embedded=false");
+            separator = '&';
+        }
+        if (ids != null) {
+            href.append(separator).append("ids=").append(String.join(",", ids));
+            separator = '&';
+        }
+        for (Map.Entry<String, String> criterion : criteria.entrySet()) {
+            String parameter = TEXT.equals(criterion.getKey()) ? "q" : criterion.getKey();
+            href.append(separator).append(parameter).append('=').append(encode(criterion.getValue()));
+            separator = '&';
+        }
+        return href.toString();
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is always supported", e);
+        }
+    }
+
+    private static String cursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.resource.greeting;
+
+import java.util.Date;
+
+import javax.ws.rs.core.EntityTag;
+
+import com.example.filter.NotModifiedFilter;
+
+/**
+ * The validators of the greetings that allows the {@link NotModifiedFilter} to answer conditional
+ * requests for a greeting without involving the {@link Greeting} resource.
+ */
+public class GreetingValidators implements NotModifiedFilter.Validators {
+
+    @Override
+    public EntityTag getETag(String greeting, String accept, String acceptLanguage) {
+        return Greeting.getCurrentETag(greeting, accept, acceptLanguage);
+    }
+
+    @Override
+    public Date getLastModified() {
+        return Greeting.getLastModified();
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.resource.greeting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.Response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+/**
+ * Exposes the histograms of the batched writes of greetings, the number of changes per batch and the time in
+ * microseconds from a change is received until it is durable.
+ */
+@Path("metrics/greetings/writes")
+@Api(value = "/metrics/greetings/writes", tags = {"usability"})
+public class GreetingWriteMetrics {
+
+    private static final ObjectWriter WRITER = new ObjectMapper().writer();
+
+    @GET
+    @Produces("application/json")
+    @ApiOperation(value = "the batch sizes and latencies of writes of greetings")
+    public Response getWriteMetrics() throws JsonProcessingException {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("batchSize", Greeting.WRITES.getBatchSizes().summary());
+        metrics.put("latencyMicros", Greeting.WRITES.getLatencies().summary());
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setNoStore(true);
+        return Response.ok()
+                .entity(WRITER.writeValueAsString(metrics))
+                .cacheControl(cacheControl)
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.openapitools.jackson.dataformat.hal.HALLink;
 import io.openapitools.jackson.dataformat.hal.annotation.EmbeddedResource;
 import io.openapitools.jackson.dataformat.hal.annotation.Link;
@@ -18,8 +19,10 @@ import io.swagger.annotations.ApiModelProperty;
  * HAL allows for you to have objects linked and embeddedGreetings, these linked objects must be available,
  the embeddedGreetings can be available according to the hypertext cache pattern in the HAL specification.
  * 
+ * A page of the list links to the next and previous pages, these links are left out when the list is complete.
  */
 @Resource
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @ApiModel(value = "Greetings", description = "A Greeting List")
 public class GreetingsRepresentation {
     private String info;
@@ -30,27 +33,61 @@ public class GreetingsRepresentation {
     @Link("greetings")
     private Collection<HALLink> greetings;
 
+    @Link("next")
+    private HALLink next;
+
+    @Link("prev")
+    private HALLink prev;
+
     @EmbeddedResource("greetings")
     private Collection<GreetingRepresentation> embeddedGreetings;
 
     public GreetingsRepresentation(String info, Collection<GreetingRepresentation> greetings) {
+        this(info, "/greetings", greetings, greetings, null, null);
+    }
+
+    /**
+     * @param info information about the list
+     * @param href the href of the list or the page of the list
+     * @param greetings the greetings linked to
+     * @param embedded the greetings embedded or null if the list contains links only
+     * @param next the href of the next page or null
+     * @param prev the href of the previous page or null
+     */
+    public GreetingsRepresentation(String info, String href, Collection<GreetingRepresentation> greetings,
+            Collection<GreetingRepresentation> embedded, String next, String prev) {
         this.info = info;
-        this.self = new HALLink.Builder("/greetings")
+        this.self = selfLink(href);
+        this.next = next == null ? null : pageLink(next);
+        this.prev = prev == null ? null : pageLink(prev);
+        if (embedded != null) {
+            embeddedGreetings = new ArrayList<>(embedded.size());
+            embeddedGreetings.addAll(embedded);
+        }
+        this.greetings = new ArrayList<>();
+        this.greetings.addAll(greetings.stream()
+                .map(GreetingsRepresentation::greetingLink)
+                .collect(Collectors.toList()));
+    }
+
+    static HALLink selfLink(String href) {
+        return new HALLink.Builder(href)
                 .name("greetingslist")
                 .title("A list of greetings")
                 .type("application/hal+json;concept=greetings")
                 .build();
-        embeddedGreetings = new ArrayList<>(greetings.size());
-        embeddedGreetings.addAll(greetings);
-        this.greetings = new ArrayList<>();
-        this.greetings.addAll(greetings.stream()
-                .map(greeting -> new HALLink.Builder(greeting.getSelf().getHref())
-                        .title(greeting.getSelf().getTitle())
-                        .type(greeting.getSelf().getType())
-                        //.seen(greeting.getSelf().getSeen())
-                        .build()
-                )
-                .collect(Collectors.toList()));
+    }
+
+    static HALLink pageLink(String href) {
+        return new HALLink.Builder(href).type("application/hal+json;concept=greetings").build();
+    }
+
+    static HALLink greetingLink(GreetingRepresentation greeting) {
+        return new HALLink.Builder(greeting.getSelf().getHref())
+                .title(greeting.getSelf().getTitle())
+                .type(greeting.getSelf().getType())
+                //.seen(greeting.getSelf().getSeen())
+                .build();
     }
 
     @ApiModelProperty(
@@ -73,7 +110,15 @@ public class GreetingsRepresentation {
         return Collections.unmodifiableCollection(greetings);
     }
 
+    public HALLink getNext() {
+        return next;
+    }
+
+    public HALLink getPrev() {
+        return prev;
+    }
+
     public Collection<GreetingRepresentation> getEmbeddedGreetings() {
-        return Collections.unmodifiableCollection(embeddedGreetings);
+        return embeddedGreetings == null ? null : Collections.unmodifiableCollection(embeddedGreetings);
     }    
 }
@@ -0,0 +1,23 @@
+package com.example.resource.greeting;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import io.openapitools.jackson.dataformat.hal.annotation.Resource;
+
+/**
+ * A Greeting Representation limited to the fields asked for in the greetings list, where the properties left out
+ * by the projection are not serialized. Greetings outside a projection keep their null properties.
+ */
+@Resource
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProjectedGreetingRepresentation extends GreetingRepresentation {
+
+    public ProjectedGreetingRepresentation() {
+        // default constructor required by Jackson
+    }
+
+    public ProjectedGreetingRepresentation(String greeting, String language, String country,
+            GreetingNativeRepresentation nativeInfo, HALLink self) {
+        super(greeting, language, country, nativeInfo, self);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+/**
+ * Produces responses for suspended requests on a dedicated and bounded set of threads, thus the threads of the
+ * server are released while e.g. a write waits to be durable.
+ * <p>
+ * A request waiting longer than the timeout for a thread is answered with {@code 503 Service Unavailable} and a
+ * request, which cannot be queued because the queue is full is answered with {@code 429 Too Many Requests}, both
+ * having a {@code Retry-After} header and the {@code X-Log-Token} of the request, as documented for every
+ * operation. A request is only answered with 503 if its work has not started, thus a retry never repeats a write,
+ * which has been made, the timeout of a request, which work has started, is extended until the work is done.
+ */
+public class ResponseExecutor implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ResponseExecutor.class.getName());
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    /**
+     * @param threads the number of threads producing responses
+     * @param queueSize the number of requests waiting for a thread before requests are rejected
+     * @param timeout the time a request may wait for its response
+     * @param unit the unit of the timeout
+     */
+    public ResponseExecutor(int threads, int queueSize, long timeout, TimeUnit unit) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "response-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), factory);
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * creates an executor configured by the system properties {@code greetings.async.threads} (default 16),
+     * {@code greetings.async.queue} (default 256) and {@code greetings.async.timeout} in milliseconds (default 5000)
+     *
+     * @return the executor
+     */
+    public static ResponseExecutor create() {
+        return new ResponseExecutor(
+                Integer.getInteger("greetings.async.threads", 16),
+                Integer.getInteger("greetings.async.queue", 256),
+                Long.getLong("greetings.async.timeout", 5000L), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * produces the response for a suspended request
+     *
+     * @param asyncResponse the suspended request
+     * @param logToken the correlation id returned with a 503 or 429
+     * @param work the production of the response
+     */
+    public void execute(AsyncResponse asyncResponse, String logToken, Supplier<Response> work) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        Runnable task = () -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                asyncResponse.resume(work.get());
+            } catch (RuntimeException e) {
+                asyncResponse.resume(e);
+            }
+        };
+        asyncResponse.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(timedOut -> {
+            if (claimed.compareAndSet(false, true)) {
+                executor.remove(task);
+                LOGGER.log(Level.WARNING, "Request timed out after {0} ms, log token {1}", new Object[]{timeoutMillis, logToken});
+                timedOut.resume(unavailable(Response.Status.SERVICE_UNAVAILABLE, logToken));
+            } else {
+                LOGGER.log(Level.INFO, "Request still working after {0} ms, log token {1}", new Object[]{timeoutMillis, logToken});
+                timedOut.setTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.WARNING, "Request rejected as {0} requests are waiting, log token {1}",
+                    new Object[]{executor.getQueue().size(), logToken});
+            asyncResponse.resume(unavailable(Response.Status.TOO_MANY_REQUESTS, logToken));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private Response unavailable(Response.Status status, String logToken) {
+        return Response.status(status)
+                .header("Retry-After", Math.max(1, TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)))
+                .header("X-Log-Token", logToken)
+                .build();
+    }
+}
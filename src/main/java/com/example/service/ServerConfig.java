@@ -0,0 +1,223 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+import org.glassfish.grizzly.IOStrategy;
+import org.glassfish.grizzly.http.KeepAlive;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.http2.Http2AddOn;
+import org.glassfish.grizzly.http2.Http2Configuration;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.strategies.LeaderFollowerNIOStrategy;
+import org.glassfish.grizzly.strategies.SameThreadIOStrategy;
+import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
+import org.glassfish.grizzly.threadpool.ThreadPoolConfig;
+
+/**
+ * The configuration of the server, read when the server starts.
+ * <p>
+ * Every setting is looked up as a system property, e.g. {@code -Dgreetings.server.workers=64}, then as an
+ * environment variable named in upper case using underscores, e.g. {@code GREETINGS_SERVER_WORKERS=64}, and
+ * finally in the properties file given by {@code greetings.config}. A setting which is not found leaves the
+ * default of Grizzly in place.
+ * <ul>
+ *   <li>{@code greetings.server.uri} the base URI the server listens on</li>
+ *   <li>{@code greetings.server.threads} {@code platform} or {@code virtual} threads handling requests</li>
+ *   <li>{@code greetings.server.selectors} the number of selector threads</li>
+ *   <li>{@code greetings.server.workers} the number of worker threads</li>
+ *   <li>{@code greetings.server.workers.queue} the number of requests waiting for a worker thread</li>
+ *   <li>{@code greetings.server.io-strategy} {@code worker-thread}, {@code same-thread} or {@code leader-follower}</li>
+ *   <li>{@code greetings.server.buffer.read} and {@code greetings.server.buffer.write} the socket buffer sizes in bytes</li>
+ *   <li>{@code greetings.server.keep-alive.requests} the number of requests on a connection, -1 is unlimited</li>
+ *   <li>{@code greetings.server.keep-alive.idle} the seconds an idle connection is kept, -1 is unlimited</li>
+ *   <li>{@code greetings.server.http2} {@code true} to accept HTTP/2 over cleartext (h2c) next to HTTP/1.1</li>
+ *   <li>{@code greetings.server.http2.max-streams} the number of concurrent streams on an HTTP/2 connection</li>
+ * </ul>
+ */
+public final class ServerConfig {
+
+    private final URI baseUri;
+    private final String threads;
+    private final Integer selectors;
+    private final Integer workers;
+    private final Integer workerQueue;
+    private final IoStrategy ioStrategy;
+    private final Integer readBufferSize;
+    private final Integer writeBufferSize;
+    private final Integer keepAliveRequests;
+    private final Integer keepAliveIdleSeconds;
+    private final boolean http2;
+    private final Integer http2MaxStreams;
+
+    private ServerConfig(Function<String, String> settings) {
+        baseUri = URI.create(setting(settings, "greetings.server.uri", ServiceExecutor.BASE_URI));
+        threads = setting(settings, "greetings.server.threads", "platform");
+        selectors = positive(settings, "greetings.server.selectors");
+        workers = positive(settings, "greetings.server.workers");
+        workerQueue = number(settings, "greetings.server.workers.queue");
+        String strategy = settings.apply("greetings.server.io-strategy");
+        ioStrategy = strategy == null ? null : IoStrategy.parse(strategy);
+        readBufferSize = positive(settings, "greetings.server.buffer.read");
+        writeBufferSize = positive(settings, "greetings.server.buffer.write");
+        keepAliveRequests = number(settings, "greetings.server.keep-alive.requests");
+        keepAliveIdleSeconds = number(settings, "greetings.server.keep-alive.idle");
+        http2 = Boolean.parseBoolean(setting(settings, "greetings.server.http2", "false"));
+        http2MaxStreams = positive(settings, "greetings.server.http2.max-streams");
+    }
+
+    /**
+     * @return the configuration from system properties, environment variables and the file given by
+     * {@code greetings.config}
+     */
+    public static ServerConfig load() {
+        Properties file = new Properties();
+        String path = lookup("greetings.config", file);
+        if (path != null) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(path))) {
+                file.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the configuration " + path, e);
+            }
+        }
+        return from(key -> lookup(key, file));
+    }
+
+    /**
+     * @param settings the value of a setting by its name or null if the setting is not given
+     * @return the configuration of the given settings
+     */
+    public static ServerConfig from(Function<String, String> settings) {
+        return new ServerConfig(settings);
+    }
+
+    public URI getBaseUri() {
+        return baseUri;
+    }
+
+    public String getThreads() {
+        return threads;
+    }
+
+    /**
+     * applies the configuration to the listeners of a server, which has not been started
+     *
+     * @param server the server
+     * @param workerPool the executor replacing the worker pool of Grizzly or null to keep the worker pool
+     */
+    public void configure(HttpServer server, ExecutorService workerPool) {
+        for (NetworkListener listener : server.getListeners()) {
+            TCPNIOTransport transport = listener.getTransport();
+            if (selectors != null) {
+                transport.setSelectorRunnersCount(selectors);
+            }
+            if (ioStrategy != null) {
+                // replaces the worker pool configuration by the default of the strategy
+                transport.setIOStrategy(ioStrategy.strategy);
+            }
+            ThreadPoolConfig pool = transport.getWorkerThreadPoolConfig();
+            if (workerPool != null) {
+                transport.setWorkerThreadPool(workerPool);
+            } else if (pool != null) {
+                if (workers != null) {
+                    pool.setMaxPoolSize(workers).setCorePoolSize(workers);
+                }
+                if (workerQueue != null) {
+                    pool.setQueueLimit(workerQueue);
+                }
+            }
+            if (readBufferSize != null) {
+                transport.setReadBufferSize(readBufferSize);
+            }
+            if (writeBufferSize != null) {
+                transport.setWriteBufferSize(writeBufferSize);
+            }
+            KeepAlive keepAlive = listener.getKeepAlive();
+            if (keepAliveRequests != null) {
+                keepAlive.setMaxRequestsCount(keepAliveRequests);
+            }
+            if (keepAliveIdleSeconds != null) {
+                keepAlive.setIdleTimeoutInSeconds(keepAliveIdleSeconds);
+            }
+            if (http2) {
+                Http2Configuration.Http2ConfigurationBuilder http2Config = Http2Configuration.builder();
+                if (http2MaxStreams != null) {
+                    http2Config.maxConcurrentStreams(http2MaxStreams);
+                }
+                listener.registerAddOn(new Http2AddOn(http2Config.build()));
+            }
+        }
+    }
+
+    private static String lookup(String key, Properties file) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = System.getenv(key.toUpperCase(Locale.ROOT).replace('.', '_').replace('-', '_'));
+        }
+        if (value == null) {
+            value = file.getProperty(key);
+        }
+        return value;
+    }
+
+    private static String setting(Function<String, String> settings, String key, String defaultValue) {
+        String value = settings.apply(key);
+        return value == null ? defaultValue : value.trim();
+    }
+
+    private static Integer number(Function<String, String> settings, String key) {
+        String value = settings.apply(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " must be a number, was " + value, e);
+        }
+    }
+
+    private static Integer positive(Function<String, String> settings, String key) {
+        Integer value = number(settings, key);
+        if (value != null && value < 1) {
+            throw new IllegalArgumentException(key + " must be positive, was " + value);
+        }
+        return value;
+    }
+
+    /**
+     * The strategies of Grizzly for handling IO events.
+     */
+    public enum IoStrategy {
+        /** events are handled on a worker thread, freeing the selector thread */
+        WORKER_THREAD(WorkerThreadIOStrategy.getInstance()),
+        /** events are handled on the selector thread, for short non-blocking work */
+        SAME_THREAD(SameThreadIOStrategy.getInstance()),
+        /** the selector thread handles the event and a worker thread takes over selecting */
+        LEADER_FOLLOWER(LeaderFollowerNIOStrategy.getInstance());
+
+        private final IOStrategy strategy;
+
+        IoStrategy(IOStrategy strategy) {
+            this.strategy = strategy;
+        }
+
+        static IoStrategy parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("greetings.server.io-strategy must be worker-thread, same-thread "
+                        + "or leader-follower, was " + value, e);
+            }
+        }
+    }
+}
@@ -1,22 +1,39 @@
 package com.example.service;
 
-import java.net.URI;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.ws.rs.ApplicationPath;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.ext.ContextResolver;
 
+import com.example.RepresentationMappers;
 import com.example.filter.CORSFilter;
+import com.example.filter.CompressionFilter;
+import com.example.filter.NotModifiedFilter;
+import com.example.resource.greeting.GreetingRepresentation;
+import com.example.resource.greeting.GreetingValidators;
+import com.example.resource.greeting.GreetingsRepresentation;
+import com.example.resource.greeting.ProjectedGreetingRepresentation;
+import com.example.service.patch.JSONPatchContainer;
+import com.example.service.patch.JSONPatchReader;
 import com.example.service.patch.OptionsAcceptPatchHeaderFilter;
-import com.example.service.patch.PatchInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import io.openapitools.jackson.dataformat.hal.HALMapper;
 import io.swagger.annotations.ExternalDocs;
 import io.swagger.annotations.SwaggerDefinition;
 import io.swagger.annotations.Tag;
 import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.jersey.internal.inject.AbstractBinder;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
 import org.glassfish.jersey.moxy.json.MoxyJsonConfig;
 import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
 
 /**
  * ServiceExecutor - allows execution using 'mvn exec:java@start-server' 
@@ -35,7 +52,7 @@ import org.glassfish.jersey.server.ResourceConfig;
 
 @ApplicationPath("/")
 public final class ServiceExecutor {
-    // Base URI the Grizzly HTTP server will listen on
+    // Default base URI the Grizzly HTTP server will listen on, see ServerConfig
     public static final String BASE_URI = "http://0.0.0.0:8080/";
     private static final Logger LOGGER = Logger.getLogger(ServiceExecutor.class.getName());
 
@@ -47,7 +64,60 @@ public final class ServiceExecutor {
      * @return Grizzly HTTP server.
      */
     public static HttpServer startServer() {
-        return GrizzlyHttpServerFactory.createHttpServer(URI.create(BASE_URI), create());
+        return startServer(ServerConfig.load());
+    }
+
+    /**
+     * Starts Grizzly HTTP server exposing JAX-RS resources defined in this application.
+     * <p>
+     * Requests are handled by the worker pool of Grizzly, unless the server is configured with
+     * {@code greetings.server.threads=virtual}, see {@link #createWorkers(String)}.
+     * @param config the listener, transport and thread settings of the server
+     * @return Grizzly HTTP server.
+     */
+    public static HttpServer startServer(ServerConfig config) {
+        final ResourceConfig rc = create();
+        final ExecutorService workers = createWorkers(config.getThreads());
+        if (workers != null) {
+            rc.register(onShutdown(workers::shutdown));
+        }
+        final HttpServer server = GrizzlyHttpServerFactory.createHttpServer(config.getBaseUri(), rc, false);
+        config.configure(server, workers);
+        try {
+            server.start();
+        } catch (IOException e) {
+            throw new ProcessingException("Could not start the server at " + config.getBaseUri(), e);
+        }
+        return server;
+    }
+
+    /**
+     * Create the executor handling the requests of the server.
+     * <p>
+     * The worker pool of Grizzly has a small and fixed number of threads, each held by a request until it is 
+     * answered, thus a few slow consumers may hold every thread. Virtual threads are created per request and 
+     * are cheap to block, they are available from Java 21 and are looked up when the service runs, as the 
+     * service is built for Java 8. On earlier versions the worker pool of Grizzly is used.
+     *
+     * @param threads {@code platform} for the worker pool of Grizzly or {@code virtual} for virtual threads
+     * @return an executor creating a virtual thread per request or null if the worker pool of Grizzly is used
+     */
+    public static ExecutorService createWorkers(String threads) {
+        if ("platform".equals(threads)) {
+            return null;
+        }
+        if (!"virtual".equals(threads)) {
+            throw new IllegalArgumentException("greetings.server.threads must be platform or virtual, was " + threads);
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            LOGGER.log(Level.WARNING, "Virtual threads are not available on Java {0}, using platform threads",
+                    System.getProperty("java.version"));
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create virtual threads", e);
+        }
     }
 
     /**
@@ -56,22 +126,68 @@ public final class ServiceExecutor {
      * @throws Exception if anything fails. 
      */
     public static void main(String[] args) throws Exception {
-        final HttpServer server = startServer();
+        final ServerConfig config = ServerConfig.load();
+        final HttpServer server = startServer(config);
         LOGGER.log(Level.INFO, String.format("Jersey app started with WADL available at "
-                + "%sapplication.wadl%nHit enter to stop it...", BASE_URI));
+                + "%sapplication.wadl%nHit enter to stop it...", config.getBaseUri()));
         System.in.read();
         server.shutdownNow();
     }
     
     public static ResourceConfig create() {
-        final ResourceConfig rc = new ResourceConfig(OptionsAcceptPatchHeaderFilter.class, PatchInterceptor.class)
+        final RepresentationMappers mappers = createMappers();
+        final ResourceConfig rc = new ResourceConfig(OptionsAcceptPatchHeaderFilter.class)
                 .packages("com.example")
-                .register(CORSFilter.class);
+                .register(CORSFilter.class)
+                .register(new CompressionFilter())
+                .register(new NotModifiedFilter("greetings", new GreetingValidators()))
+                .register(new JSONPatchReader(mappers.reader(JSONPatchContainer.class), JSONPatchReader.LIMIT));
         rc.register(createMoxyJsonResolver());
+        final ResponseExecutor responses = ResponseExecutor.create();
+        rc.register(new AbstractBinder() {
+            @Override
+            protected void configure() {
+                bind(mappers).to(RepresentationMappers.class);
+                bind(responses).to(ResponseExecutor.class);
+            }
+        });
+        rc.register(onShutdown(responses::close));
         rc.property("jersey.config.server.tracing.type", "ON_DEMAND");
         return rc;
     }
     
+    /**
+     * Create the {@link RepresentationMappers} shared by all requests, holding the readers and writers for 
+     * the representations exposed by the service. 
+     *
+     * @return {@code RepresentationMappers} with the greeting and patch representations registered.
+     */
+    public static RepresentationMappers createMappers() {
+        return new RepresentationMappers()
+                .register(new HALMapper(), GreetingRepresentation.class, ProjectedGreetingRepresentation.class,
+                        GreetingsRepresentation.class, HALLink.class)
+                .register(new ObjectMapper(), JSONPatchContainer.class);
+    }
+
+    private static ContainerLifecycleListener onShutdown(Runnable shutdown) {
+        return new ContainerLifecycleListener() {
+            @Override
+            public void onStartup(Container container) {
+                // nothing to start
+            }
+
+            @Override
+            public void onReload(Container container) {
+                // kept across reloads
+            }
+
+            @Override
+            public void onShutdown(Container container) {
+                shutdown.run();
+            }
+        };
+    }
+
     /**
      * Create {@link javax.ws.rs.ext.ContextResolver} for {@link org.glassfish.jersey.moxy.json.MoxyJsonConfig}
      * for this application.
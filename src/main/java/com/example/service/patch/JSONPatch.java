@@ -0,0 +1,121 @@
+package com.example.service.patch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A patch as described in RFC6902, which is a list of operations applied in order to a representation.
+ * <p>
+ * The representation is never changed, the operations are applied to a copy, which is returned when every
+ * operation has succeeded, thus a patch is applied completely or not at all and the copy can replace the
+ * representation in one step. Only the objects on the paths of the operations are copied, the copy shares
+ * the other objects with the representation.
+ * <p>
+ * The members of an object are the properties of a class, where a property, which is null, does not exist,
+ * thus e.g. adding a member replaces the property and removing a member sets the property to null.
+ */
+public final class JSONPatch {
+
+    private static final String OPERATIONS = "add, remove, replace, move, copy and test";
+
+    private final List<JSONPatchContainer> operations;
+
+    /**
+     * @param operations the operations of the patch in the order they are applied
+     */
+    public JSONPatch(List<JSONPatchContainer> operations) {
+        this.operations = Collections.unmodifiableList(new ArrayList<>(operations));
+    }
+
+    /**
+     * @param operations the operations of the patch in the order they are applied
+     * @return the patch
+     */
+    public static JSONPatch of(JSONPatchContainer... operations) {
+        return new JSONPatch(Arrays.asList(operations));
+    }
+
+    public List<JSONPatchContainer> getOperations() {
+        return operations;
+    }
+
+    /**
+     * @param representation the representation to patch, which is not changed
+     * @param <T> the type of representation
+     * @return a patched copy of the representation
+     * @throws IllegalArgumentException if an operation could not be applied, e.g. if its path does not exist or a
+     * test fails, where the message tells which
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T apply(T representation) {
+        Class<?> type = representation.getClass();
+        Set<Object> copies = Collections.newSetFromMap(new IdentityHashMap<>());
+        Object document = representation;
+        for (JSONPatchContainer operation : operations) {
+            document = apply(operation, type, document, copies);
+        }
+        return (T) document;
+    }
+
+    private static Object apply(JSONPatchContainer operation, Class<?> type, Object document, Set<Object> copies) {
+        String name = operation.getOperation();
+        if (name == null) {
+            throw new IllegalArgumentException("op is missing, the operations are " + OPERATIONS);
+        }
+        PropertyPath path = PropertyPath.of(type, required("path", operation.getPath()));
+        switch (name) {
+            case "add":
+                return path.set(document, path.convert(value(operation)), copies);
+            case "remove":
+                if (path.isDocument()) {
+                    throw new IllegalArgumentException("the document cannot be removed");
+                }
+                path.existing(document);
+                return path.set(document, null, copies);
+            case "replace":
+                path.existing(document);
+                return path.set(document, path.convert(value(operation)), copies);
+            case "move":
+                return move(document, PropertyPath.of(type, required("from", operation.getFrom())), path, copies);
+            case "copy":
+                Object copied = PropertyPath.of(type, required("from", operation.getFrom())).existing(document);
+                return path.set(document, path.convert(copied), copies);
+            case "test":
+                if (!PropertyPath.equals(path.existing(document), value(operation))) {
+                    throw new IllegalArgumentException("test of " + path.getPointer() + " failed");
+                }
+                return document;
+            default:
+                throw new IllegalArgumentException("op " + name + " is not supported, the operations are " + OPERATIONS);
+        }
+    }
+
+    private static Object move(Object document, PropertyPath from, PropertyPath path, Set<Object> copies) {
+        if (from.isDocument() || path.isBelow(from)) {
+            throw new IllegalArgumentException(from.getPointer() + " cannot be moved to " + path.getPointer());
+        }
+        Object value = from.existing(document);
+        if (from.getPointer().equals(path.getPointer())) {
+            return document;
+        }
+        Object moved = from.set(document, null, copies);
+        return path.set(moved, path.convert(value), copies);
+    }
+
+    private static JsonNode value(JSONPatchContainer operation) {
+        return required("value", operation.getJsonValue());
+    }
+
+    private static <V> V required(String member, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException(member + " is missing");
+        }
+        return value;
+    }
+}
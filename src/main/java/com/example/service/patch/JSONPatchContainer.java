@@ -1,47 +1,55 @@
 package com.example.service.patch;
 
-import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.List;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import java.util.stream.Collectors;
-
-import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
 
 /**
- * A very simple representation of a patch+json object.
- * 
- * The current implementation is a very simple edition of parts of the RFC6902.
- * Currently only supporting  replace and doing that for non-array objects. 
- * PATCH is usually only used for updating into humongous objects are and 
- * not for objects of the size used in the sample. 
- * There is still quite a lot of discussion around the actual path PATCH 
- * implementations should take. 
- * 
- * The content-type used here is ”application/patch+json” and not ”application/json-patch+json” 
- * as this is not strictly following or complete the RFC.
+ * A single operation of a patch+json object as described in RFC6902.
+ *
+ * The operation is one of add, remove, replace, move, copy and test, the path and from are JSON pointers into
+ * the patched representation and the value is any JSON value, see {@link JSONPatch} for how the operations are
+ * applied. The leading slash of a pointer may be left out e.g. {@code language}.
+ * PATCH is usually only used for updating into humongous objects are and
+ * not for objects of the size used in the sample.
+ *
+ * The content-type used here is ”application/patch+json” and not ”application/json-patch+json”
+ * as this was the content-type used before the operations of the RFC were supported.
  */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY, getterVisibility = JsonAutoDetect.Visibility.NONE,
+        isGetterVisibility = JsonAutoDetect.Visibility.NONE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"op", "path", "from", "value"})
 public class JSONPatchContainer {
 
-    private static final Logger LOGGER = Logger.getLogger(JSONPatchContainer.class.getName());
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @JsonProperty("op")
     private String operation;
     private String path;
-    private String value;
-    private String[] pathElements;
+    private String from;
+    private JsonNode value;
 
     public JSONPatchContainer() {
         //default constructor required by Jackson
     }
 
     public JSONPatchContainer(String op, String path, String value) {
+        this(op, path, null, value == null ? null : TextNode.valueOf(value));
+    }
+
+    public JSONPatchContainer(String op, String path, String from, JsonNode value) {
         this.operation = op;
         this.path = path;
+        this.from = from;
         this.value = value;
     }
 
-    @JsonProperty("op")
     public String getOperation() {
         return operation;
     }
@@ -50,61 +58,30 @@ public class JSONPatchContainer {
         return path;
     }
 
-    public String getValue() {
-        return value;
-    }
-
-    @Override
-    public String toString() {
-        return "{\"op\":\"" + operation + "\",\"path\":\"" + path + "\",\"value\":\"" + value + "\"}";
+    public String getFrom() {
+        return from;
     }
 
-    @JsonIgnore
-    public boolean replaceValue(Object o) throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException {
-        Class c = o.getClass();
-        return replaceValue(c, o, 0);
+    /**
+     * @return the value as text if it is a JSON string, otherwise the value as JSON or null if there is no value
+     */
+    public String getValue() {
+        return value == null ? null : value.isTextual() ? value.textValue() : value.toString();
     }
 
-    private boolean replaceValue(Class c, Object o, int level) throws IllegalArgumentException, IllegalAccessException, NoSuchFieldException {
-        if (level < getPathElements().length) {
-            Field f = c.getDeclaredField(getPathElements()[level]);
-            boolean access = f.isAccessible();
-            f.setAccessible(true);
-            if (f.getType().equals(String.class) && level == getPathElements().length - 1) {
-                f.set(o, value);
-                if (!access) {
-                    LOGGER.log(Level.WARNING,
-                            "Patched private field immutabilty may be violated (Class::Name) ({0}::{1}) Object::{3}", new Object[]{c.getName(), f.getName(), o.toString()});
-                }
-                return true;
-            }
-            Object obj = f.get(o);
-            f.setAccessible(access);
-            return replaceValue(f.getType(), obj, ++level);
-        }
-        return false;
+    /**
+     * @return the JSON value or null if there is no value, whereas the JSON null is a null node
+     */
+    public JsonNode getJsonValue() {
+        return value;
     }
 
-    private String[] getPathElements() {
-        if (pathElements != null) {
-            return pathElements;
-        }
-        String[] elements = path.split("/");
-        List<String> l = Arrays.asList(elements);
-        List<String> r = l.stream()
-                .filter(e -> !"_links".equals(e))
-                .filter(e -> !"".equals(e))
-                .collect(Collectors.toList());
-        String[] result = new String[r.size()];
-        if (result.length > 0) {
-            pathElements = r.toArray(result);
-        } else if (elements.length == 1 && !"".equals(elements[0])) {
-            result = new String[1];
-            result[0] = elements[0].trim();
-            pathElements = result;
-        } else {
-            pathElements = new String[0];
+    @Override
+    public String toString() {
+        try {
+            return MAPPER.writeValueAsString(this);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write the operation " + operation + " of " + path, e);
         }
-        return pathElements;
     }
 }
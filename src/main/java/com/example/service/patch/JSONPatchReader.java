@@ -0,0 +1,158 @@
+package com.example.service.patch;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Reads the body of a PATCH request into a {@link JSONPatch}, the body is a single operation or an array of
+ * operations.
+ * <p>
+ * The operations are parsed directly from the request stream, thus the body is neither read into a string nor
+ * written again before it is parsed. The body may take up at most the number of bytes given by
+ * {@code -Dgreetings.patch.limit} (default 65536 bytes), a larger body is answered by 413, which is decided from
+ * the {@code Content-Length} before anything is read, or when the limit is passed for a body without a length.
+ * A body, which is not a patch, is answered by 400.
+ */
+@Consumes({"application/patch+json", "application/json"})
+public class JSONPatchReader implements MessageBodyReader<JSONPatch> {
+
+    /** the maximum size in bytes of a patch */
+    public static final int LIMIT = Integer.getInteger("greetings.patch.limit", 64 * 1024);
+
+    private static final Logger LOGGER = Logger.getLogger(JSONPatchReader.class.getName());
+
+    private final ObjectReader reader;
+    private final int limit;
+
+    /**
+     * @param reader the reader of a single operation
+     * @param limit the maximum size in bytes of a patch
+     */
+    public JSONPatchReader(ObjectReader reader, int limit) {
+        this.reader = reader
+                .forType(JSONPatchContainer[].class)
+                .with(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return JSONPatch.class == type;
+    }
+
+    @Override
+    public JSONPatch readFrom(Class<JSONPatch> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+        String length = httpHeaders.getFirst(HttpHeaders.CONTENT_LENGTH);
+        if (length != null && isLarger(length)) {
+            throw tooLarge();
+        }
+        try {
+            return new JSONPatch(Arrays.asList(reader.<JSONPatchContainer[]>readValue(new LimitedInputStream(entityStream, limit))));
+        } catch (LimitExceededException e) {
+            throw tooLarge();
+        } catch (JsonProcessingException e) {
+            LOGGER.log(Level.INFO, "Could not parse patch", e);
+            throw new BadRequestException(Response
+                    .status(Response.Status.BAD_REQUEST)
+                    .type(MediaType.APPLICATION_JSON_TYPE)
+                    .entity("{\"error\":\"patch could not be parsed\"}")
+                    .build());
+        }
+    }
+
+    private boolean isLarger(String length) {
+        try {
+            return Long.parseLong(length.trim()) > limit;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private WebApplicationException tooLarge() {
+        return new WebApplicationException(Response
+                .status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                .type(MediaType.APPLICATION_JSON_TYPE)
+                .entity("{\"error\":\"patch is larger than " + limit + " bytes\"}")
+                .build());
+    }
+
+    /**
+     * Passes on the bytes of a stream until more than the limit has been read.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, int limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count(skipped);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+            // the stream of the request is closed by the container
+        }
+
+        private void count(long read) throws LimitExceededException {
+            remaining -= read;
+            if (remaining < 0) {
+                throw new LimitExceededException();
+            }
+        }
+    }
+
+    private static final class LimitExceededException extends IOException {
+        private static final long serialVersionUID = 1L;
+    }
+}
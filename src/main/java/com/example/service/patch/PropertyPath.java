@@ -0,0 +1,353 @@
+package com.example.service.patch;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import io.openapitools.jackson.dataformat.hal.HALMapper;
+
+/**
+ * A JSON pointer compiled into the properties of a class, e.g. {@code /_links/self/title} of a greeting is the
+ * {@code self} link of the greeting and the {@code title} of the link.
+ * <p>
+ * The properties are named as Jackson names them, whereas {@code _links} is skipped as the links of a HAL
+ * resource are properties of the resource. Each property is read and written through method handles, which
+ * are looked up once per class, and a compiled pointer is cached per class, thus applying a patch does not
+ * search for fields or methods.
+ * <p>
+ * Writing a property never changes the object read, the objects from the root down to the property are
+ * copied and the copy of the root is returned, whereas every other object is shared by the copy.
+ * <p>
+ * Values are converted and compared by a HAL mapper, as the representations are read and written, thus a value
+ * of a patch, e.g. a whole greeting or a link, has the same JSON form as the representation sent to the client.
+ */
+final class PropertyPath {
+
+    private static final int MAX_CACHED = 256;
+    private static final String LINKS = "_links";
+    private static final ObjectMapper MAPPER = new HALMapper();
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final Map<Class<?>, Bean> BEANS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, PropertyPath>> PATHS = new ConcurrentHashMap<>();
+
+    private final String pointer;
+    private final Class<?> root;
+    private final Property[] properties;
+
+    private PropertyPath(String pointer, Class<?> root, Property[] properties) {
+        this.pointer = pointer;
+        this.root = root;
+        this.properties = properties;
+    }
+
+    /**
+     * @param type the class of the document
+     * @param pointer the JSON pointer, where the leading slash may be left out
+     * @return the compiled pointer
+     * @throws IllegalArgumentException if the pointer does not name a property
+     */
+    static PropertyPath of(Class<?> type, String pointer) {
+        Map<String, PropertyPath> paths = PATHS.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+        PropertyPath path = paths.get(pointer);
+        if (path == null) {
+            path = compile(type, pointer);
+            if (paths.size() >= MAX_CACHED) {
+                paths.clear();
+            }
+            paths.put(pointer, path);
+        }
+        return path;
+    }
+
+    private static PropertyPath compile(Class<?> type, String pointer) {
+        String normalized = pointer.isEmpty() || pointer.startsWith("/") ? pointer : "/" + pointer;
+        JsonPointer segment;
+        try {
+            segment = JsonPointer.compile(normalized);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(normalized + " is not a JSON pointer", e);
+        }
+        List<Property> properties = new ArrayList<>();
+        Class<?> current = type;
+        for (; !segment.matches(); segment = segment.tail()) {
+            String name = segment.getMatchingProperty();
+            if (LINKS.equals(name) && !segment.tail().matches()) {
+                continue;
+            }
+            Property property = bean(current).properties.get(name);
+            if (property == null) {
+                throw new IllegalArgumentException(normalized + " does not exist");
+            }
+            properties.add(property);
+            current = property.type.getRawClass();
+        }
+        return new PropertyPath(normalized, type, properties.toArray(new Property[0]));
+    }
+
+    /**
+     * @return the value or null if the value or an object holding it is null
+     */
+    Object get(Object document) {
+        Object value = document;
+        for (int i = 0; i < properties.length && value != null; i++) {
+            value = properties[i].get(value);
+        }
+        return value;
+    }
+
+    /**
+     * @return the value, which must exist
+     * @throws IllegalArgumentException if the value is null
+     */
+    Object existing(Object document) {
+        Object value = get(document);
+        if (value == null) {
+            throw new IllegalArgumentException(pointer + " does not exist");
+        }
+        return value;
+    }
+
+    /**
+     * writes the value into a copy of the document, where the objects created by earlier writes of the same
+     * patch are changed instead of copied again
+     *
+     * @param document the document
+     * @param value the value of the property or null to remove it
+     * @param copies the objects copied so far by the patch
+     * @return the copy of the document holding the value
+     * @throws IllegalArgumentException if an object holding the property does not exist
+     */
+    Object set(Object document, Object value, Set<Object> copies) {
+        if (properties.length == 0) {
+            return value;
+        }
+        Object copy = copy(document, copies);
+        Object parent = copy;
+        for (int i = 0; i < properties.length - 1; i++) {
+            Object child = properties[i].get(parent);
+            if (child == null) {
+                throw new IllegalArgumentException(pointer + " does not exist");
+            }
+            Object childCopy = copy(child, copies);
+            if (childCopy != child) {
+                properties[i].set(parent, childCopy);
+            }
+            parent = childCopy;
+        }
+        Property last = properties[properties.length - 1];
+        if (value == null && last.type.isPrimitive()) {
+            throw new IllegalArgumentException(pointer + " cannot be removed");
+        }
+        last.set(parent, value);
+        return copy;
+    }
+
+    /**
+     * @return the value converted to the type of the property
+     * @throws IllegalArgumentException if the value cannot be converted
+     */
+    Object convert(JsonNode value) {
+        try {
+            return MAPPER.convertValue(value, type());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("value could not be converted to " + pointer, e);
+        }
+    }
+
+    /**
+     * @return a copy of a value read from another property converted to the type of the property
+     */
+    Object convert(Object value) {
+        return convert(MAPPER.valueToTree(value));
+    }
+
+    /**
+     * @return true if the value is the given JSON value
+     */
+    static boolean equals(Object value, JsonNode json) {
+        return MAPPER.valueToTree(value).equals(json);
+    }
+
+    /**
+     * @return true if the pointer is a property held by the value of the other pointer
+     */
+    boolean isBelow(PropertyPath other) {
+        return properties.length > other.properties.length
+                && Arrays.asList(properties).subList(0, other.properties.length).equals(Arrays.asList(other.properties));
+    }
+
+    boolean isDocument() {
+        return properties.length == 0;
+    }
+
+    String getPointer() {
+        return pointer;
+    }
+
+    private JavaType type() {
+        return properties.length == 0 ? MAPPER.constructType(root) : properties[properties.length - 1].type;
+    }
+
+    private static Object copy(Object value, Set<Object> copies) {
+        if (copies.contains(value)) {
+            return value;
+        }
+        Object copy = bean(value.getClass()).copy(value);
+        copies.add(copy);
+        return copy;
+    }
+
+    private static Bean bean(Class<?> type) {
+        return BEANS.computeIfAbsent(type, Bean::new);
+    }
+
+    /**
+     * The properties of a class as Jackson finds them and the fields used for copying an instance.
+     */
+    private static final class Bean {
+        private final Class<?> type;
+        private final Map<String, Property> properties;
+        private final MethodHandle constructor;
+        private final List<MethodHandle[]> fields = new ArrayList<>();
+
+        Bean(Class<?> type) {
+            this.type = type;
+            if (isValue(type)) {
+                properties = Collections.emptyMap();
+                constructor = null;
+                return;
+            }
+            Map<String, Property> found = new HashMap<>();
+            BeanDescription description = MAPPER.getDeserializationConfig().introspect(MAPPER.constructType(type));
+            for (BeanPropertyDefinition definition : description.findProperties()) {
+                AnnotatedMember accessor = definition.getAccessor();
+                AnnotatedMember mutator = definition.getMutator();
+                if (accessor != null && mutator != null && !(mutator.getMember() instanceof Constructor)) {
+                    found.put(definition.getName(), new Property(definition.getName(), accessor.getType(),
+                            reader(accessor.getMember()), writer(mutator.getMember())));
+                }
+            }
+            properties = Collections.unmodifiableMap(found);
+            constructor = constructor(type);
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields.add(new MethodHandle[]{reader(field), writer(field)});
+                    }
+                }
+            }
+        }
+
+        Object copy(Object value) {
+            if (constructor == null) {
+                throw new IllegalArgumentException(type.getSimpleName() + " cannot be copied");
+            }
+            try {
+                Object copy = (Object) constructor.invokeExact();
+                for (MethodHandle[] field : fields) {
+                    field[1].invokeExact(copy, (Object) field[0].invokeExact(value));
+                }
+                return copy;
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not copy " + type.getName(), e);
+            }
+        }
+
+        private static boolean isValue(Class<?> type) {
+            return type.isPrimitive() || type.isArray() || type.isEnum() || type.getName().startsWith("java.")
+                    || JsonNode.class.isAssignableFrom(type);
+        }
+
+        private static MethodHandle constructor(Class<?> type) {
+            try {
+                Constructor<?> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                return LOOKUP.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+            } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+                return null;
+            }
+        }
+
+        private static MethodHandle reader(Member member) {
+            try {
+                ((AccessibleObject) member).setAccessible(true);
+                MethodHandle handle = member instanceof Field
+                        ? LOOKUP.unreflectGetter((Field) member) : LOOKUP.unreflect((Method) member);
+                return handle.asType(MethodType.methodType(Object.class, Object.class));
+            } catch (IllegalAccessException | SecurityException e) {
+                throw new IllegalStateException("Could not read " + member, e);
+            }
+        }
+
+        private static MethodHandle writer(Member member) {
+            try {
+                ((AccessibleObject) member).setAccessible(true);
+                MethodHandle handle = member instanceof Field
+                        ? LOOKUP.unreflectSetter((Field) member) : LOOKUP.unreflect((Method) member);
+                return handle.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            } catch (IllegalAccessException | SecurityException e) {
+                throw new IllegalStateException("Could not write " + member, e);
+            }
+        }
+    }
+
+    /**
+     * A property of a class read and written through method handles.
+     */
+    private static final class Property {
+        private final String name;
+        private final JavaType type;
+        private final MethodHandle reader;
+        private final MethodHandle writer;
+
+        Property(String name, JavaType type, MethodHandle reader, MethodHandle writer) {
+            this.name = name;
+            this.type = type;
+            this.reader = reader;
+            this.writer = writer;
+        }
+
+        Object get(Object owner) {
+            try {
+                return (Object) reader.invokeExact(owner);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not read " + name, e);
+            }
+        }
+
+        void set(Object owner, Object value) {
+            try {
+                writer.invokeExact(owner, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not write " + name, e);
+            }
+        }
+    }
+}
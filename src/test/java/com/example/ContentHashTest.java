@@ -0,0 +1,23 @@
+package com.example;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ContentHashTest {
+
+    @Test
+    public void testSameContentSameHash() {
+        assertEquals(ContentHash.of("Hallo!", "Dansk", null), ContentHash.of("Hallo!", "Dansk", null));
+        assertEquals(16, ContentHash.of("Hallo!").length());
+        assertEquals(16, ContentHash.of().length());
+    }
+
+    @Test
+    public void testPartsAreSeparated() {
+        assertNotEquals(ContentHash.of("ab", "c"), ContentHash.of("a", "bc"));
+        assertNotEquals(ContentHash.of("a", null), ContentHash.of("a", ""));
+        assertNotEquals(ContentHash.of("Dansk", "Danmark"), ContentHash.of("Danmark", "Dansk"));
+    }
+}
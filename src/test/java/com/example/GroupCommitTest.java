@@ -0,0 +1,221 @@
+package com.example;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GroupCommitTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testConcurrentChangesShareFlush() throws Exception {
+        CountingStore store = new CountingStore();
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store);
+        try (GroupCommit<String, String> writes = new GroupCommit<>(container, 16, 50, TimeUnit.MILLISECONDS)) {
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(writes.submit(RepresentationContainer.Change.add("greeting" + i, "Hallo " + i)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(5, TimeUnit.SECONDS);
+            assertEquals(16, container.size());
+            assertEquals(16, store.added.get());
+            assertEquals(1, store.flushes.get());
+            assertEquals(1, writes.getBatchSizes().getCount());
+            assertEquals(16, writes.getBatchSizes().getMax());
+            assertEquals(16, writes.getLatencies().getCount());
+        }
+    }
+
+    @Test
+    public void testBatchSizeIsLimited() throws Exception {
+        CountingStore store = new CountingStore();
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store);
+        try (GroupCommit<String, String> writes = new GroupCommit<>(container, 4, 50, TimeUnit.MILLISECONDS)) {
+            CompletableFuture<Boolean> last = null;
+            for (int i = 0; i < 10; i++) {
+                last = writes.submit(RepresentationContainer.Change.add("greeting" + i, "Hallo " + i));
+            }
+            last.get(5, TimeUnit.SECONDS);
+            assertEquals(10, container.size());
+            assertEquals(3, store.flushes.get());
+            assertEquals(4, writes.getBatchSizes().getMax());
+        }
+    }
+
+    @Test
+    public void testChangesAreDurableWhenCompleted() throws Exception {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of,
+                new JournalStore<>(journal, JournalStore.Codec.utf8(), JournalStore.Codec.utf8()));
+        int writers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        try (GroupCommit<String, String> writes = new GroupCommit<>(container, 64, 0, TimeUnit.MILLISECONDS)) {
+            for (int t = 0; t < writers; t++) {
+                int writer = t;
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < 50; i++) {
+                            writes.submit(RepresentationContainer.Change.add("greeting" + writer + "_" + i, "Hallo")).join();
+                        }
+                        writes.submit(RepresentationContainer.Change.remove("greeting" + writer + "_0")).join();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(writers * 51, writes.getLatencies().getCount());
+            assertTrue(writes.getBatchSizes().getCount() <= writers * 51);
+        }
+        container.close();
+        container = new RepresentationContainer<>(ContentHash::of,
+                new JournalStore<>(journal, JournalStore.Codec.utf8(), JournalStore.Codec.utf8()));
+        assertEquals(writers * 49, container.size());
+        container.close();
+    }
+
+    @Test
+    public void testConditionalChangesLoseNoUpdates() throws Exception {
+        CountingStore store = new CountingStore();
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store);
+        container.add("counter", "0");
+        int writers = 8;
+        int increments = 200;
+        AtomicInteger rejections = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        try (GroupCommit<String, String> writes = new GroupCommit<>(container, 64, 0, TimeUnit.MILLISECONDS)) {
+            for (int t = 0; t < writers; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < increments; i++) {
+                            while (true) {
+                                RepresentationContainer.Tagged<String> counter = container.getTagged("counter");
+                                String next = String.valueOf(Integer.parseInt(counter.getRepresentation()) + 1);
+                                if (writes.submit(RepresentationContainer.Change.addIfTag("counter", counter.getTag(), next)).join()) {
+                                    break;
+                                }
+                                rejections.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(String.valueOf(writers * increments), container.get("counter"));
+            assertEquals(1 + writers * increments, store.added.get());
+            assertEquals(writers * increments + rejections.get(), writes.getLatencies().getCount());
+        }
+    }
+
+    @Test
+    public void testFailedWriteCompletesExceptionally() throws Exception {
+        CountingStore store = new CountingStore() {
+            @Override
+            public void flush() {
+                throw new IllegalStateException("disk full");
+            }
+        };
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store);
+        try (GroupCommit<String, String> writes = new GroupCommit<>(container, 4, 0, TimeUnit.MILLISECONDS)) {
+            CompletableFuture<Boolean> future = writes.submit(RepresentationContainer.Change.add("hallo_da", "Hallo!"));
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+            assertTrue(future.isCompletedExceptionally());
+            assertEquals(0, container.size());
+        }
+    }
+
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50.5, histogram.getMean(), 0.001);
+        assertEquals(63, histogram.getPercentile(50));
+        assertEquals(100, histogram.getPercentile(99));
+        assertEquals(1, histogram.getPercentile(1));
+    }
+
+    private static class CountingStore implements RepresentationStore<String, String> {
+        private final AtomicInteger added = new AtomicInteger();
+        private final AtomicInteger flushes = new AtomicInteger();
+
+        @Override
+        public void replay(BiConsumer<? super String, ? super String> consumer) {
+            // nothing is stored
+        }
+
+        @Override
+        public void added(String key, String representation) {
+            added.incrementAndGet();
+        }
+
+        @Override
+        public void removed(String key) {
+            // only additions are counted
+        }
+
+        @Override
+        public void flush() {
+            flushes.incrementAndGet();
+        }
+
+        @Override
+        public void rollback() {
+            // nothing is stored
+        }
+
+        @Override
+        public boolean needsCompaction(int size) {
+            return false;
+        }
+
+        @Override
+        public void compact(Iterable<Map.Entry<String, String>> representations) {
+            // nothing is stored
+        }
+
+        @Override
+        public void close() {
+            // nothing is stored
+        }
+    }
+}
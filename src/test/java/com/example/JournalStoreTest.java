@@ -0,0 +1,215 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.example.resource.greeting.GreetingNativeRepresentation;
+import com.example.resource.greeting.GreetingRepresentation;
+import com.example.service.ServiceExecutor;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JournalStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReplayAfterRestart() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        container.add("hallo_da", "Hallo!");
+        container.add("hello_en", "Hello!");
+        container.add("hallo_da", "Halløj!");
+        container.remove("hello_en");
+        container.add("hej_da", "Hej!");
+        container.close();
+
+        container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(2, container.size());
+        assertEquals("Halløj!", container.get("hallo_da"));
+        assertEquals("Hej!", container.get("hej_da"));
+        assertNull(container.get("hello_en"));
+        assertEquals(ContentHash.of("Hej!"), container.getTag("hej_da"));
+        container.add("goddag_da", "Goddag!");
+        container.close();
+
+        container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(3, container.size());
+        assertEquals("Goddag!", container.get("goddag_da"));
+        container.close();
+    }
+
+    @Test
+    public void testChangeBeforeReplayIsAppended() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        JournalStore<String, String> store = store(journal);
+        store.added("hallo_da", "Hallo!");
+        store.added("hej_da", "Hej!");
+        store.close();
+        store = store(journal);
+        store.removed("hallo_da");
+        assertEquals(3, store.getRecords());
+        store.close();
+
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(1, container.size());
+        assertEquals("Hej!", container.get("hej_da"));
+        container.close();
+    }
+
+    @Test
+    public void testBrokenRecordIsIgnored() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        JournalStore<String, String> store = store(journal);
+        store.added("hallo_da", "Hallo!");
+        store.added("hej_da", "Hej!");
+        store.close();
+        try (RandomAccessFile file = new RandomAccessFile(journal.toFile(), "rw")) {
+            long lastRecord = 8 + 8 + 1 + 4 + "hallo_da".length() + "Hallo!".length();
+            file.seek(lastRecord + 8 + 1 + 4 + 1);
+            file.write('X');
+        }
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(1, container.size());
+        assertEquals("Hallo!", container.get("hallo_da"));
+        container.add("goddag_da", "Goddag!");
+        container.close();
+
+        container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(2, container.size());
+        assertNull(container.get("hej_da"));
+        assertEquals("Goddag!", container.get("goddag_da"));
+        container.close();
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        JournalStore<String, String> store = store(journal);
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of, store);
+        for (int i = 0; i < 5000; i++) {
+            container.add("greeting" + (i % 10), "Hallo " + i);
+        }
+        container.remove("greeting0");
+        assertTrue(store.getRecords() < 2000);
+        assertTrue(Files.notExists(journal.resolveSibling("greetings.journal.snapshot")));
+        container.close();
+
+        container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(9, container.size());
+        assertEquals("Hallo 4999", container.get("greeting9"));
+        assertEquals("Hallo 4991", container.get("greeting1"));
+        container.close();
+    }
+
+    @Test
+    public void testJournalLargerThanWindow() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of,
+                new JournalStore<>(journal, JournalStore.Codec.utf8(), JournalStore.Codec.utf8(), 4096));
+        StringBuilder longer = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            longer.append((char) ('a' + i % 26));
+        }
+        for (int i = 0; i < 2000; i++) {
+            container.add("greeting" + i, i % 100 == 0 ? longer.toString() : "Hallo " + i);
+        }
+        container.close();
+        assertTrue(Files.size(journal) > 4 * 4096);
+
+        container = new RepresentationContainer<>(ContentHash::of,
+                new JournalStore<>(journal, JournalStore.Codec.utf8(), JournalStore.Codec.utf8(), 4096));
+        assertEquals(2000, container.size());
+        assertEquals("Hallo 1999", container.get("greeting1999"));
+        assertEquals(longer.toString(), container.get("greeting1900"));
+        for (int i = 0; i < 3000; i++) {
+            container.add("greeting" + (i % 1000), "Hej " + i);
+        }
+        assertTrue(Files.notExists(journal.resolveSibling("greetings.journal.snapshot")));
+        container.add("goddag", "Goddag!");
+        container.close();
+
+        container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(2001, container.size());
+        assertEquals("Hej 2999", container.get("greeting999"));
+        assertEquals(longer.toString(), container.get("greeting1900"));
+        assertEquals("Goddag!", container.get("goddag"));
+        container.close();
+    }
+
+    @Test
+    public void testFailedWriteIsRolledBack() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        JournalStore.Codec<String> utf8 = JournalStore.Codec.utf8();
+        JournalStore.Codec<String> failing = new JournalStore.Codec<String>() {
+            @Override
+            public byte[] encode(String value) {
+                if (value.startsWith("Bang")) {
+                    throw new IllegalArgumentException("Cannot encode " + value);
+                }
+                return utf8.encode(value);
+            }
+
+            @Override
+            public String decode(byte[] bytes) {
+                return utf8.decode(bytes);
+            }
+        };
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of,
+                new JournalStore<>(journal, utf8, failing));
+        container.add("hallo_da", "Hallo!");
+        try {
+            container.write(Arrays.asList(RepresentationContainer.Change.add("hej_da", "Hej!"),
+                    RepresentationContainer.Change.remove("hallo_da"),
+                    RepresentationContainer.Change.add("bang_da", "Bang!")));
+            fail("the write should fail");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cannot encode Bang!", e.getMessage());
+        }
+        assertEquals(1, container.size());
+        assertNull(container.get("hej_da"));
+        container.add("goddag_da", "Goddag!");
+        container.close();
+
+        container = new RepresentationContainer<>(ContentHash::of, store(journal));
+        assertEquals(2, container.size());
+        assertEquals("Hallo!", container.get("hallo_da"));
+        assertEquals("Goddag!", container.get("goddag_da"));
+        assertNull(container.get("hej_da"));
+        container.close();
+    }
+
+    @Test
+    public void testGreetingsAsJson() throws IOException {
+        Path journal = folder.getRoot().toPath().resolve("greetings.journal");
+        RepresentationMappers mappers = ServiceExecutor.createMappers();
+        JournalStore.Codec<GreetingRepresentation> json = JournalStore.Codec.json(
+                mappers.reader(GreetingRepresentation.class), mappers.writer(GreetingRepresentation.class));
+        JournalStore<String, GreetingRepresentation> store = new JournalStore<>(journal, JournalStore.Codec.utf8(), json);
+        store.added("hallo_da", new GreetingRepresentation("Hallo!", "Dansk", "Danmark",
+                new GreetingNativeRepresentation("Dansk", "Danmark"),
+                new HALLink.Builder("/greetings/hallo").title("Dansk Hilsen Hallo").build()));
+        store.close();
+        RepresentationContainer<String, GreetingRepresentation> container = new RepresentationContainer<>(
+                gr -> gr.getGreeting(), new JournalStore<>(journal, JournalStore.Codec.utf8(), json));
+        assertEquals("Hallo!", container.get("hallo_da").getGreeting());
+        assertEquals("Danmark", container.get("hallo_da").getNative().getCountry());
+        assertEquals("/greetings/hallo", container.get("hallo_da").getSelf().getHref());
+        container.close();
+    }
+
+    private static JournalStore<String, String> store(Path journal) {
+        return new JournalStore<>(journal, JournalStore.Codec.utf8(), JournalStore.Codec.utf8());
+    }
+}
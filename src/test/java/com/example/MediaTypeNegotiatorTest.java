@@ -0,0 +1,78 @@
+package com.example;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MediaTypeNegotiatorTest {
+
+    private final MediaTypeNegotiator<String> negotiator = new MediaTypeNegotiator<String>()
+            .register("application/hal+json;concept=greeting;v=3", "v3")
+            .register("application/hal+json;concept=greeting;v=2", "v2")
+            .register("application/hal+json;concept=greeting", "concept")
+            .register("application/hal+json", "hal")
+            .register("application/json", "json");
+
+    @Test
+    public void testExactTypes() {
+        assertEquals("v3", negotiator.negotiate("application/hal+json;concept=greeting;v=3"));
+        assertEquals("v2", negotiator.negotiate("application/hal+json;concept=greeting;v=2"));
+        assertEquals("concept", negotiator.negotiate("application/hal+json;concept=greeting"));
+        assertEquals("hal", negotiator.negotiate("application/hal+json"));
+        assertEquals("json", negotiator.negotiate("application/json"));
+    }
+
+    @Test
+    public void testWhitespaceCaseAndQuotes() {
+        assertEquals("v2", negotiator.negotiate("application/hal+json; concept=greeting; v=2"));
+        assertEquals("v2", negotiator.negotiate(" Application/HAL+JSON ;Concept=greeting ;v=\"2\""));
+        assertEquals("v3", negotiator.negotiate("application/hal+json;v=3;concept=greeting"));
+    }
+
+    @Test
+    public void testQualityAndMultipleTypes() {
+        assertEquals("v3", negotiator.negotiate("application/json;q=0.5, application/hal+json;concept=greeting;v=3"));
+        assertEquals("json", negotiator.negotiate("application/hal+json;concept=greeting;v=2;q=0.4, application/json;q=0.8"));
+        assertEquals("v2", negotiator.negotiate("text/plain, application/hal+json;concept=greeting;v=2;q=0.1"));
+        assertEquals("hal", negotiator.negotiate("application/hal+json;concept=greeting;v=2;q=0, application/hal+json"));
+        assertEquals("v3", negotiator.negotiate("application/hal+json;q=0.2, application/hal+json;concept=greeting;v=3"));
+    }
+
+    @Test
+    public void testPartialParametersChooseFirstRegistered() {
+        assertEquals("v3", negotiator.negotiate("application/hal+json;v=3"));
+        assertEquals("concept", negotiator.negotiate("application/hal+json;concept=greeting"));
+    }
+
+    @Test
+    public void testUnacceptable() {
+        assertNull(negotiator.negotiate(null));
+        assertNull(negotiator.negotiate(""));
+        assertNull(negotiator.negotiate("application/hal+json;concept=unrealgreeting"));
+        assertNull(negotiator.negotiate("application/hal+json;concept=greeting;v=9"));
+        assertNull(negotiator.negotiate("application/json;q=0"));
+        assertNull(negotiator.negotiate("application/json;q=x"));
+        assertNull(negotiator.negotiate("*/*"));
+        assertNull(negotiator.negotiate("application/*"));
+        assertNull(negotiator.negotiate("text/html, image/gif, image/jpeg, *; q=.2, */*; q=.2"));
+    }
+
+    @Test
+    public void testDecisionIsCached() {
+        String accept = "application/json;q=0.5, application/hal+json;concept=greeting;v=2";
+        assertEquals("v2", negotiator.negotiate(accept));
+        assertEquals("v2", negotiator.negotiate(accept));
+        assertNull(negotiator.negotiate("text/plain"));
+        assertNull(negotiator.negotiate("text/plain"));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("json", negotiator.negotiate("application/json, text/x-" + i));
+        }
+        assertEquals("v2", negotiator.negotiate(accept));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterWildcard() {
+        new MediaTypeNegotiator<String>().register("application/*", "any");
+    }
+}
@@ -0,0 +1,325 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RepresentationContainerTest {
+
+    @Test
+    public void testVariantIsRenderedOnce() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        AtomicInteger renderings = new AtomicInteger();
+        Function<String, byte[]> renderer = v -> {
+            renderings.incrementAndGet();
+            return v.getBytes();
+        };
+        container.add("hallo_da", "Hallo!");
+        byte[] first = container.getVariant("hallo_da", "v4", renderer);
+        byte[] second = container.getVariant("hallo_da", "v4", renderer);
+        assertArrayEquals("Hallo!".getBytes(), first);
+        assertSame(first, second);
+        assertEquals(1, renderings.get());
+        container.getVariant("hallo_da", "v3", renderer);
+        assertEquals(2, renderings.get());
+    }
+
+    @Test
+    public void testVariantIsDiscardedOnChange() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        AtomicInteger renderings = new AtomicInteger();
+        Function<String, byte[]> renderer = v -> {
+            renderings.incrementAndGet();
+            return v.getBytes();
+        };
+        container.add("hallo_da", "Hallo!");
+        container.getVariant("hallo_da", "v4", renderer);
+        container.add("hallo_da", "Halløj!");
+        assertArrayEquals("Halløj!".getBytes(), container.getVariant("hallo_da", "v4", renderer));
+        assertEquals(2, renderings.get());
+        container.alterchCode();
+        container.getVariant("hallo_da", "v4", renderer);
+        assertEquals(3, renderings.get());
+        container.remove("hallo_da");
+        assertNull(container.getVariant("hallo_da", "v4", renderer));
+        assertEquals(3, renderings.get());
+    }
+
+    @Test
+    public void testDocumentIsRenderedOncePerChange() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        AtomicInteger renderings = new AtomicInteger();
+        Function<Collection<String>, byte[]> renderer = values -> {
+            renderings.incrementAndGet();
+            return String.join(",", new TreeSet<>(values)).getBytes();
+        };
+        container.add("hallo_da", "Hallo!");
+        byte[] first = container.getDocument("list", renderer);
+        assertArrayEquals("Hallo!".getBytes(), first);
+        assertSame(first, container.getDocument("list", renderer));
+        assertEquals(1, renderings.get());
+        container.add("hallo_da", "Hallo!");
+        assertSame(first, container.getDocument("list", renderer));
+        container.add("hej_da", "Hej!");
+        assertArrayEquals("Hallo!,Hej!".getBytes(), container.getDocument("list", renderer));
+        assertEquals(2, renderings.get());
+        container.remove("hej_da");
+        assertArrayEquals("Hallo!".getBytes(), container.getDocument("list", renderer));
+        container.alterchCode();
+        container.getDocument("list", renderer);
+        assertEquals(4, renderings.get());
+    }
+
+    @Test
+    public void testEncodedVariantIsKeptAlongside() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        AtomicInteger encodings = new AtomicInteger();
+        UnaryOperator<byte[]> encoder = content -> {
+            encodings.incrementAndGet();
+            return new StringBuilder(new String(content)).reverse().toString().getBytes();
+        };
+        container.add("hallo_da", "Hallo!");
+        byte[] encoded = container.getVariant("hallo_da", "v4", String::getBytes, "reversed", encoder);
+        assertArrayEquals("!ollaH".getBytes(), encoded);
+        assertSame(encoded, container.getVariant("hallo_da", "v4", String::getBytes, "reversed", encoder));
+        assertArrayEquals("Hallo!".getBytes(), container.getVariant("hallo_da", "v4", String::getBytes));
+        assertEquals(1, encodings.get());
+        container.add("hallo_da", "Hej!");
+        assertArrayEquals("!jeH".getBytes(), container.getVariant("hallo_da", "v4", String::getBytes, "reversed", encoder));
+        assertNull(container.getVariant("hej_da", "v4", String::getBytes, "reversed", encoder));
+
+        Function<Collection<String>, byte[]> renderer = values -> String.join(",", new TreeSet<>(values)).getBytes();
+        byte[] document = container.getDocument("list", renderer, "reversed", encoder);
+        assertArrayEquals("!jeH".getBytes(), document);
+        assertSame(document, container.getDocument("list", renderer, "reversed", encoder));
+        assertArrayEquals("Hej!".getBytes(), container.getDocument("list", renderer));
+        container.add("hallo_da", "Hallo!");
+        assertArrayEquals("!ollaH".getBytes(), container.getDocument("list", renderer, "reversed", encoder));
+        assertEquals(4, encodings.get());
+    }
+
+    @Test
+    public void testPages() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        for (String key : new String[]{"e", "c", "a", "d", "b"}) {
+            container.add(key, key.toUpperCase());
+        }
+        RepresentationContainer.Page<String, String> page = container.page(null, 2);
+        assertEquals("a", page.getEntries().get(0).getKey());
+        assertEquals("B", page.getEntries().get(1).getValue());
+        assertEquals("b", page.getNext());
+        assertFalse(page.hasPrevious());
+        page = container.page(page.getNext(), 2);
+        assertEquals("c", page.getEntries().get(0).getKey());
+        assertEquals("d", page.getNext());
+        assertTrue(page.hasPrevious());
+        assertNull(page.getPrevious());
+        container.add("bb", "BB");
+        page = container.page("d", 2);
+        assertEquals(1, page.getEntries().size());
+        assertFalse(page.hasNext());
+        assertEquals("bb", page.getPrevious());
+        assertTrue(container.page("e", 2).getEntries().isEmpty());
+    }
+
+    @Test
+    public void testIndexes() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        container.add("hallo_da", "Hallo!");
+        container.index("first", v -> v.substring(0, 1));
+        container.index("length", String::length);
+        container.add("hello_en", "Hello!");
+        container.add("hej_da", "Hej!");
+        container.add("hi_en", "Hi!");
+        assertEquals(Arrays.asList("hallo_da", "hej_da", "hello_en", "hi_en"), keys(container.page(
+                Collections.singletonMap("first", "H"), null, 10)));
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put("first", "H");
+        criteria.put("length", 6);
+        assertEquals(Arrays.asList("hallo_da", "hello_en"), keys(container.page(criteria, null, 10)));
+        container.add("hallo_da", "Goddag!");
+        container.remove("hello_en");
+        assertEquals(Arrays.asList("hej_da", "hi_en"), keys(container.page(Collections.singletonMap("first", "H"), null, 10)));
+        assertEquals(Collections.singletonList("hallo_da"), keys(container.page(Collections.singletonMap("first", "G"), null, 10)));
+        assertTrue(container.page(criteria, null, 10).getEntries().isEmpty());
+        assertEquals(3, container.page(Collections.emptyMap(), null, 10).getEntries().size());
+    }
+
+    @Test
+    public void testIndexedPages() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        container.index("even", v -> Integer.parseInt(v) % 2 == 0);
+        for (int i = 0; i < 10; i++) {
+            container.add("k" + i, Integer.toString(i));
+        }
+        Map<String, Object> even = Collections.singletonMap("even", true);
+        RepresentationContainer.Page<String, String> page = container.page(even, null, 2);
+        assertEquals(Arrays.asList("k0", "k2"), keys(page));
+        assertFalse(page.hasPrevious());
+        page = container.page(even, page.getNext(), 2);
+        assertEquals(Arrays.asList("k4", "k6"), keys(page));
+        assertTrue(page.hasPrevious());
+        assertNull(page.getPrevious());
+        page = container.page(even, page.getNext(), 2);
+        assertEquals(Collections.singletonList("k8"), keys(page));
+        assertFalse(page.hasNext());
+        assertEquals("k2", page.getPrevious());
+    }
+
+    @Test
+    public void testTextIndex() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        container.add("hallo_da", "Hallo! Dansk Hilsen Hallo");
+        container.textIndex("text", v -> v);
+        container.index("first", v -> v.substring(0, 2));
+        container.add("halloj_da", "Halløj! Dansk Hilsen Halløj");
+        container.add("hello_en", "Hello! English Greeting Hello");
+        container.add("hej_da", "Hej! Dansk Hilsen Hej");
+        assertEquals(Arrays.asList("hallo_da", "halloj_da"), keys(container.page(Collections.singletonMap("text", "HAL"), null, 10)));
+        assertEquals(Collections.singletonList("halloj_da"), keys(container.page(Collections.singletonMap("text", "halloj"), null, 10)));
+        assertEquals(Arrays.asList("hallo_da", "halloj_da", "hej_da"),
+                keys(container.page(Collections.singletonMap("text", "dansk h"), null, 10)));
+        assertEquals(Collections.singletonList("hej_da"), keys(container.page(Collections.singletonMap("text", "hils hej"), null, 10)));
+        assertTrue(container.page(Collections.singletonMap("text", "dansk greeting"), null, 10).getEntries().isEmpty());
+        assertTrue(container.page(Collections.singletonMap("text", "!"), null, 10).getEntries().isEmpty());
+        Map<String, Object> criteria = new HashMap<>();
+        criteria.put("text", "hilsen");
+        criteria.put("first", "He");
+        assertEquals(Collections.singletonList("hej_da"), keys(container.page(criteria, null, 10)));
+        container.add("hej_da", "Goddag! Dansk Hilsen Goddag");
+        container.remove("hallo_da");
+        assertEquals(Collections.singletonList("hej_da"), keys(container.page(Collections.singletonMap("text", "godd"), null, 10)));
+        assertEquals(Collections.singletonList("halloj_da"), keys(container.page(Collections.singletonMap("text", "ha"), null, 10)));
+        assertEquals(Collections.singletonList("halloj_da"), keys(container.page(Collections.singletonMap("text", "hal"), "hallo_da", 10)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownIndex() {
+        new RepresentationContainer<String, String>().page(Collections.singletonMap("none", "x"), null, 10);
+    }
+
+    private static List<String> keys(RepresentationContainer.Page<String, String> page) {
+        return page.getEntries().stream().map(Map.Entry::getKey).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEncodedInMemory() {
+        AtomicInteger decodings = new AtomicInteger();
+        JournalStore.Codec<String> utf8 = JournalStore.Codec.utf8();
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of,
+                RepresentationStore.<String, String>none(), new JournalStore.Codec<String>() {
+                    @Override
+                    public byte[] encode(String value) {
+                        return utf8.encode(value);
+                    }
+
+                    @Override
+                    public String decode(byte[] bytes) {
+                        decodings.incrementAndGet();
+                        return utf8.decode(bytes);
+                    }
+                });
+        container.index("length", String::length);
+        container.add("hallo_da", "Hallo!");
+        container.add("hej_da", "Hej!");
+        assertEquals("Hallo!", container.get("hallo_da"));
+        assertEquals(ContentHash.of("Hallo!"), container.getTag("hallo_da"));
+        int decoded = decodings.get();
+        byte[] variant = container.getVariant("hallo_da", "v4", String::getBytes);
+        assertSame(variant, container.getVariant("hallo_da", "v4", String::getBytes));
+        assertEquals(decoded + 1, decodings.get());
+        container.write(Collections.singletonList(RepresentationContainer.Change.update("hallo_da", "Goddag!")));
+        assertEquals("Goddag!", container.get("hallo_da"));
+        assertEquals(ContentHash.of("Goddag!"), container.getTag("hallo_da"));
+        assertEquals(Collections.singletonList("hallo_da"), keys(container.page(Collections.singletonMap("length", 7), null, 10)));
+        assertEquals(Arrays.asList("Goddag!", "Hej!"), new ArrayList<>(container.values()));
+        assertEquals(2, container.size());
+    }
+
+    @Test
+    public void testConditionalChanges() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of);
+        assertTrue(container.addIfTag("hallo_da", null, "Hallo!"));
+        assertFalse(container.addIfTag("hallo_da", null, "Halløj!"));
+        String tag = container.getTag("hallo_da");
+        assertTrue(container.addIfTag("hallo_da", tag, "Halløj!"));
+        assertFalse(container.addIfTag("hallo_da", tag, "Hej!"));
+        assertFalse(container.removeIfTag("hallo_da", tag));
+        assertEquals("Halløj!", container.get("hallo_da"));
+
+        RepresentationContainer.Tagged<String> tagged = container.getTagged("hallo_da");
+        assertEquals("Halløj!", tagged.getRepresentation());
+        assertEquals(container.getTag("hallo_da"), tagged.getTag());
+        assertTrue(container.removeIfTag("hallo_da", tagged.getTag()));
+        assertNull(container.getTagged("hallo_da"));
+        assertFalse(container.removeIfTag("hallo_da", tagged.getTag()));
+    }
+
+    @Test
+    public void testConditionalChangesInOneWrite() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(ContentHash::of);
+        container.add("hallo_da", "Hallo!");
+        String tag = container.getTag("hallo_da");
+        RepresentationContainer.Change<String, String> lost = RepresentationContainer.Change.addIfTag("hallo_da", tag, "Hej!");
+        List<RepresentationContainer.Change<String, String>> rejected = container.write(Arrays.asList(
+                RepresentationContainer.Change.addIfTag("hallo_da", tag, "Halløj!"),
+                lost,
+                RepresentationContainer.Change.addIfTag("hej_da", null, "Hej!"),
+                RepresentationContainer.Change.removeIfTag("hej_da", ContentHash.of("Hej!"))));
+        assertEquals(Collections.singletonList(lost), rejected);
+        assertEquals("Halløj!", container.get("hallo_da"));
+        assertNull(container.get("hej_da"));
+        assertEquals(1, container.size());
+    }
+
+    @Test
+    public void testChangeCode() {
+        RepresentationContainer<String, String> container = new RepresentationContainer<>();
+        String initial = container.getChCode();
+        container.add("hallo_da", "Hallo!");
+        String added = container.getChCode();
+        container.add("hallo_da", "Hallo!");
+        assertEquals(added, container.getChCode());
+        container.remove("hallo_da");
+        assertEquals(0, container.size());
+        assertEquals(2, Integer.parseInt(container.getChCode(), 16) - Integer.parseInt(initial, 16));
+    }
+
+    @Test
+    public void testTagIsComputedWhenStored() {
+        AtomicInteger taggings = new AtomicInteger();
+        RepresentationContainer<String, String> container = new RepresentationContainer<>(v -> {
+            taggings.incrementAndGet();
+            return ContentHash.of(v);
+        });
+        assertNull(container.getTag("hallo_da"));
+        container.add("hallo_da", "Hallo!");
+        String tag = container.getTag("hallo_da");
+        assertEquals(ContentHash.of("Hallo!"), tag);
+        assertEquals(tag, container.getTag("hallo_da"));
+        assertEquals(1, taggings.get());
+        container.add("hallo_da", "Halløj!");
+        assertNotEquals(tag, container.getTag("hallo_da"));
+        container.add("hallo_da", "Hallo!");
+        assertEquals(tag, container.getTag("hallo_da"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.example.resource.greeting.GreetingRepresentation;
+import com.example.service.ServiceExecutor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.openapitools.jackson.dataformat.hal.HALMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a mapper constructed per request with the pre-built readers and writers from {@link RepresentationMappers}.
+ * <p>
+ * Run using: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="RepresentationMappersBenchmark -f 0"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepresentationMappersBenchmark {
+
+    private static final String GREETING = "{\"greeting\":\"Hallo!\",\"language\":\"Dansk\",\"country\":\"Danmark\","
+            + "\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},"
+            + "\"_links\":{\"self\":{\"href\":\"greetings/hallo\",\"title\":\"Dansk Hilsen Hallo\"}}}";
+
+    private RepresentationMappers mappers;
+    private GreetingRepresentation greeting;
+
+    @Setup
+    public void setUp() throws IOException {
+        mappers = ServiceExecutor.createMappers();
+        greeting = mappers.reader(GreetingRepresentation.class).readValue(GREETING);
+    }
+
+    @Benchmark
+    public String writePerRequestMapper() throws JsonProcessingException {
+        ObjectMapper mapper = new HALMapper();
+        return mapper.writeValueAsString(greeting);
+    }
+
+    @Benchmark
+    public String writeSharedWriter() throws JsonProcessingException {
+        return mappers.writer(GreetingRepresentation.class).writeValueAsString(greeting);
+    }
+
+    @Benchmark
+    public GreetingRepresentation readPerRequestMapper() throws IOException {
+        ObjectMapper mapper = new HALMapper();
+        return mapper.readValue(GREETING, GreetingRepresentation.class);
+    }
+
+    @Benchmark
+    public GreetingRepresentation readSharedReader() throws IOException {
+        return mappers.reader(GreetingRepresentation.class).readValue(GREETING);
+    }
+}
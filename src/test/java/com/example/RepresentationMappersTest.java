@@ -0,0 +1,42 @@
+package com.example;
+
+import java.io.IOException;
+
+import com.example.resource.greeting.GreetingRepresentation;
+import com.example.service.ServiceExecutor;
+import com.example.service.patch.JSONPatchContainer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RepresentationMappersTest {
+
+    @Test
+    public void testReadAndWriteGreeting() throws IOException {
+        RepresentationMappers mappers = ServiceExecutor.createMappers();
+        String input = "{\"greeting\":\"Hallo!\",\"language\":\"Dansk\",\"country\":\"Danmark\","
+                + "\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},"
+                + "\"_links\":{\"self\":{\"href\":\"greetings/hallo\",\"title\":\"Dansk Hilsen Hallo\"}}}";
+        GreetingRepresentation gr = mappers.reader(GreetingRepresentation.class).readValue(input);
+        assertEquals("Hallo!", gr.getGreeting());
+        assertEquals("greetings/hallo", gr.getSelf().getHref());
+        String output = mappers.writer(GreetingRepresentation.class).writeValueAsString(gr);
+        assertTrue(output.contains("\"_links\":{\"self\":{\"href\":\"greetings/hallo\""));
+        assertSame(mappers.writer(GreetingRepresentation.class), mappers.writer(GreetingRepresentation.class));
+    }
+
+    @Test
+    public void testReadPatch() throws IOException {
+        RepresentationMappers mappers = ServiceExecutor.createMappers();
+        JSONPatchContainer patch = mappers.reader(JSONPatchContainer.class)
+                .readValue("{\"op\":\"replace\",\"path\":\"language\",\"value\":\"Synnejysk\"}");
+        assertEquals("replace", patch.getOperation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnregisteredType() {
+        new RepresentationMappers().writer(String.class);
+    }
+}
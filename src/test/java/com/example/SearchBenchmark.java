@@ -0,0 +1,90 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares searching the text index of a container for the first page of matches with scanning every
+ * representation, for texts of four words drawn from a vocabulary of 20.000 words.
+ * <p>
+ * Run using: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="SearchBenchmark -f 0"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+    private static final String[] SYLLABLES = {"ha", "hel", "lo", "god", "dag", "mor", "gen", "tak", "ven", "sa",
+        "bo", "nu", "ri", "ke", "mi", "lu", "da", "ne", "so", "ti"};
+    private static final int WORDS = 20_000;
+    private static final int PAGE = 20;
+
+    @Param({"1000000"})
+    private int size;
+
+    private RepresentationContainer<String, String> container;
+    private Map<String, Object> word;
+    private Map<String, Object> prefix;
+    private Map<String, Object> words;
+    private String scanned;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            vocabulary[i] = SYLLABLES[i % SYLLABLES.length] + SYLLABLES[i / SYLLABLES.length % SYLLABLES.length]
+                    + SYLLABLES[i / 400 % SYLLABLES.length] + (i / 8000 == 0 ? "" : SYLLABLES[i / 8000]);
+        }
+        container = new RepresentationContainer<>();
+        container.textIndex("text", text -> text);
+        for (int i = 0; i < size; i++) {
+            container.add(String.format("greeting%07d", i), vocabulary[random.nextInt(WORDS)] + " " + vocabulary[random.nextInt(WORDS)]
+                    + " " + vocabulary[random.nextInt(WORDS)] + " " + vocabulary[random.nextInt(WORDS)]);
+        }
+        scanned = vocabulary[WORDS / 2];
+        word = Collections.singletonMap("text", scanned);
+        prefix = Collections.singletonMap("text", vocabulary[WORDS / 2].substring(0, 4));
+        words = Collections.singletonMap("text", vocabulary[WORDS / 2] + " " + vocabulary[WORDS / 3].substring(0, 3));
+    }
+
+    @Benchmark
+    public RepresentationContainer.Page<String, String> searchWord() {
+        return container.page(word, null, PAGE);
+    }
+
+    @Benchmark
+    public RepresentationContainer.Page<String, String> searchPrefix() {
+        return container.page(prefix, null, PAGE);
+    }
+
+    @Benchmark
+    public RepresentationContainer.Page<String, String> searchWords() {
+        return container.page(words, null, PAGE);
+    }
+
+    @Benchmark
+    public List<String> scanWord() {
+        return container.values().stream().filter(text -> Terms.of(text).contains(scanned)).limit(PAGE).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TermsTest {
+
+    @Test
+    public void testTerms() {
+        assertEquals(new LinkedHashSet<>(Arrays.asList("dansk", "hilsen", "hallo")), Terms.of("Dansk Hilsen Hallo"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("hallo", "dansk")), Terms.of("Hallo! hallo, (dansk)"));
+        assertEquals(new LinkedHashSet<>(Arrays.asList("v2", "hello")), Terms.of("v2-hello"));
+        assertEquals(Collections.emptySet(), Terms.of(" !? "));
+        assertEquals(Collections.emptySet(), Terms.of(null));
+    }
+
+    @Test
+    public void testFolding() {
+        assertEquals("hallo", Terms.fold("HALLO"));
+        assertEquals("halla", Terms.fold("Hallå"));
+        assertEquals("halloj", Terms.fold("Halløj"));
+        assertEquals("aeble", Terms.fold("Æble"));
+        assertEquals("cafe", Terms.fold("café"));
+        assertEquals(Collections.singleton("grusse"), Terms.of("Grüße".replace("ß", "ss")));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressionFilterTest {
+
+    @Test
+    public void testAccepts() {
+        assertTrue(CompressionFilter.accepts("gzip"));
+        assertTrue(CompressionFilter.accepts("deflate, gzip;q=0.5"));
+        assertTrue(CompressionFilter.accepts("br, *"));
+        assertTrue(CompressionFilter.accepts("x-gzip"));
+        assertTrue(CompressionFilter.accepts("GZIP;Q=1"));
+        assertFalse(CompressionFilter.accepts(null));
+        assertFalse(CompressionFilter.accepts("identity"));
+        assertFalse(CompressionFilter.accepts("gzip;q=0"));
+        assertFalse(CompressionFilter.accepts("gzip;q=0, *"));
+        assertFalse(CompressionFilter.accepts("*;q=0"));
+    }
+
+    @Test
+    public void testGzip() throws IOException {
+        byte[] content = "Hallo! Hallo! Hallo! Hallo!".getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = CompressionFilter.gzip(content);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            assertEquals(new String(content, StandardCharsets.UTF_8), new String(out.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+}
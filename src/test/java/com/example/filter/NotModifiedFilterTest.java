@@ -0,0 +1,90 @@
+package com.example.filter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.PathSegment;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
+
+import org.junit.Test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class NotModifiedFilterTest {
+
+    private static final Date LAST_MODIFIED = new Date(1505500000000L);
+    private static final EntityTag ETAG = new EntityTag("0123456789abcdef", false);
+
+    @Test
+    public void testAbortsWithNotModified() throws IOException {
+        NotModifiedFilter.Validators validators = validators(ETAG);
+        ContainerRequestContext requestContext = request("GET", "\"0123456789abcdef\"", "greetings", "hallo");
+        Response.ResponseBuilder notModified = Response.notModified(ETAG);
+        when(requestContext.getRequest().evaluatePreconditions(LAST_MODIFIED, ETAG)).thenReturn(notModified);
+        new NotModifiedFilter("greetings", validators).filter(requestContext);
+        verify(validators).getETag("hallo", "application/hal+json", "da");
+        verify(requestContext).abortWith(any(Response.class));
+    }
+
+    @Test
+    public void testContinuesWhenModified() throws IOException {
+        ContainerRequestContext requestContext = request("GET", "\"fakeETag\"", "greetings", "hallo");
+        new NotModifiedFilter("greetings", validators(ETAG)).filter(requestContext);
+        verify(requestContext.getRequest()).evaluatePreconditions(LAST_MODIFIED, ETAG);
+        verify(requestContext, never()).abortWith(any(Response.class));
+    }
+
+    @Test
+    public void testContinuesWhenUnknown() throws IOException {
+        ContainerRequestContext requestContext = request("GET", "\"0123456789abcdef\"", "greetings", "unknown");
+        new NotModifiedFilter("greetings", validators(null)).filter(requestContext);
+        verify(requestContext, never()).abortWith(any(Response.class));
+    }
+
+    @Test
+    public void testIgnoresOtherRequests() throws IOException {
+        NotModifiedFilter.Validators validators = validators(ETAG);
+        NotModifiedFilter filter = new NotModifiedFilter("greetings", validators);
+        filter.filter(request("PUT", "\"0123456789abcdef\"", "greetings", "hallo"));
+        filter.filter(request("GET", null, "greetings", "hallo"));
+        filter.filter(request("GET", "\"0123456789abcdef\"", "greetings"));
+        filter.filter(request("GET", "\"0123456789abcdef\"", "other", "hallo"));
+        verify(validators, never()).getETag(anyString(), anyString(), anyString());
+    }
+
+    private static NotModifiedFilter.Validators validators(EntityTag eTag) {
+        NotModifiedFilter.Validators validators = mock(NotModifiedFilter.Validators.class);
+        when(validators.getETag(anyString(), anyString(), anyString())).thenReturn(eTag);
+        when(validators.getLastModified()).thenReturn(LAST_MODIFIED);
+        return validators;
+    }
+
+    private static ContainerRequestContext request(String method, String ifNoneMatch, String... path) {
+        ContainerRequestContext requestContext = mock(ContainerRequestContext.class);
+        when(requestContext.getMethod()).thenReturn(method);
+        when(requestContext.getHeaderString("If-None-Match")).thenReturn(ifNoneMatch);
+        when(requestContext.getHeaderString("Accept")).thenReturn("application/hal+json");
+        when(requestContext.getHeaderString("Accept-Language")).thenReturn("da");
+        PathSegment[] segments = new PathSegment[path.length];
+        for (int i = 0; i < path.length; i++) {
+            segments[i] = mock(PathSegment.class);
+            when(segments[i].getPath()).thenReturn(path[i]);
+        }
+        UriInfo uriInfo = mock(UriInfo.class);
+        when(uriInfo.getPathSegments()).thenReturn(Arrays.asList(segments));
+        when(requestContext.getUriInfo()).thenReturn(uriInfo);
+        Request request = mock(Request.class);
+        when(requestContext.getRequest()).thenReturn(request);
+        return requestContext;
+    }
+}
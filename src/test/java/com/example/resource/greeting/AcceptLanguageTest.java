@@ -0,0 +1,84 @@
+package com.example.resource.greeting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class AcceptLanguageTest {
+
+    @Test
+    public void testRangesAreOrderedByQuality() {
+        assertEquals(Arrays.asList("da", "en-gb", "en", "fr"), AcceptLanguage.ranges("da, en-gb;q=0.9, en;q=0.8, fr;q=0.5"));
+        assertEquals(Arrays.asList("en", "da", "en-gb", "fr"), AcceptLanguage.ranges("fr; q=0.5, en-gb;q=0.8, en, da"));
+        assertEquals(Arrays.asList("en", "da"), AcceptLanguage.ranges("en, da, da;q=0.9"));
+        assertEquals(Arrays.asList("en-us", "*"), AcceptLanguage.ranges("EN-US, *;Q=0.1"));
+        assertEquals(Collections.singletonList("en-gb"), AcceptLanguage.ranges(" en-gb"));
+    }
+
+    @Test
+    public void testRangesLeaveOutUnacceptableAndMalformed() {
+        assertEquals(Collections.singletonList("en"), AcceptLanguage.ranges("da;q=0, en, fr;q=0.000"));
+        assertEquals(Collections.singletonList("en"), AcceptLanguage.ranges("da;q=2, fr;q=x, de;q=1.5, en"));
+        assertEquals(Collections.singletonList("en"), AcceptLanguage.ranges("d@, -da, , en"));
+        assertEquals(Collections.emptyList(), AcceptLanguage.ranges("da;q=0"));
+        assertEquals(Collections.singletonList("da"), AcceptLanguage.ranges("en;level=1;q=0, da"));
+        assertEquals(Collections.singletonList("da"), AcceptLanguage.ranges("en;q=, fr;Q, de;q= ;level=1, da"));
+        assertEquals(Arrays.asList("da", "en"), AcceptLanguage.ranges("en;level=1; q=0.5, da;level=2"));
+    }
+
+    @Test
+    public void testDefaultLanguage() {
+        assertEquals(Collections.singletonList("da"), AcceptLanguage.ranges(null));
+        assertEquals(Collections.singletonList("da"), AcceptLanguage.ranges(""));
+        assertEquals("da", AcceptLanguage.preferred("*"));
+        assertEquals("da", AcceptLanguage.preferred("da;q=0"));
+        assertEquals("en", AcceptLanguage.preferred("*, en;q=0.5"));
+    }
+
+    @Test
+    public void testResolveAgainstPresentLanguages() {
+        Set<String> present = new HashSet<>(Arrays.asList("da", "fr"));
+        assertEquals("fr", AcceptLanguage.resolve("en-us, en-gb;q=0.8, fr;q=0.5", present::contains));
+        assertEquals("en-us", AcceptLanguage.resolve("en-us, en-gb;q=0.8", present::contains));
+        assertEquals("da", AcceptLanguage.resolve("en, *;q=0.1", present::contains));
+        assertEquals("da", AcceptLanguage.resolve(null, present::contains));
+    }
+
+    @Test
+    public void testFindInPreferredLanguage() {
+        Set<String> present = new HashSet<>(Arrays.asList("hallo_da", "hallo_fr"));
+        assertEquals("hallo_fr", AcceptLanguage.find("en, fr;q=0.5, da;q=0.1", language -> present.contains("hallo_" + language) ? "hallo_" + language : null));
+        assertEquals("hallo_da", AcceptLanguage.find("en, *;q=0.1", language -> present.contains("hallo_" + language) ? "hallo_" + language : null));
+        assertNull(AcceptLanguage.find("en, de", language -> present.contains("hallo_" + language) ? "hallo_" + language : null));
+    }
+
+    @Test
+    public void testLookupRemovesSubtags() {
+        Set<String> present = new HashSet<>(Arrays.asList("da", "en", "zh-hant"));
+        assertEquals("en", AcceptLanguage.resolve("en-gb, da;q=0.5", present::contains));
+        assertEquals("da", AcceptLanguage.resolve("fr-ca, da;q=0.5, en;q=0.1", present::contains));
+        assertEquals("zh-hant", AcceptLanguage.resolve("zh-hant-x-tw", present::contains));
+        assertEquals("fr-ca", AcceptLanguage.resolve("fr-ca, de", present::contains));
+        List<String> tried = new ArrayList<>();
+        assertNull(AcceptLanguage.find("zh-hant-cn-x-private, fr", language -> {
+            tried.add(language);
+            return null;
+        }));
+        assertEquals(Arrays.asList("zh-hant-cn-x-private", "zh-hant-cn", "zh-hant", "zh", "fr"), tried);
+    }
+
+    @Test
+    public void testRangesAreCached() {
+        String header = "se, de;q=0.7";
+        assertSame(AcceptLanguage.ranges(header), AcceptLanguage.ranges(new String(header.toCharArray())));
+    }
+}
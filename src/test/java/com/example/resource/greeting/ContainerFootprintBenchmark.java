@@ -0,0 +1,134 @@
+package com.example.resource.greeting;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import com.example.RepresentationContainer;
+import com.example.RepresentationStore;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import io.openapitools.jackson.dataformat.hal.HALMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Compares the heap taken up by greetings kept as objects with greetings kept encoded by {@link GreetingCodec},
+ * measures filling the container and prints the heap used per greeting after a garbage collection. Reading
+ * every greeting of a filled container is measured as well, for links built in code, which have {@code templated},
+ * and for links read from a request without {@code templated}, as most stored greetings are.
+ * <p>
+ * Run using: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="ContainerFootprintBenchmark -f 0"}, 10.000.000 greetings kept as objects need a heap of
+ * some 8 GB e.g. {@code MAVEN_OPTS=-Xmx10g}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(1)
+public class ContainerFootprintBenchmark {
+
+    private static final String[][] LANGUAGES = {{"Dansk", "Danmark", "da"}, {"English", "England", "en"},
+        {"Deutsch", "Deutschland", "de"}, {"Svenska", "Sverige", "sv"}, {"Norsk", "Norge", "no"},
+        {"Français", "France", "fr"}, {"Español", "España", "es"}, {"Italiano", "Italia", "it"}};
+
+    @Param({"1000000", "10000000"})
+    private int greetings;
+
+    @Param({"objects", "compact"})
+    private String container;
+
+    @Param({"templated", "untemplated"})
+    private String links;
+
+    private final ObjectReader linkReader = new HALMapper().readerFor(HALLink.class);
+
+    private RepresentationContainer<String, GreetingRepresentation> representations;
+    private long before;
+
+    @Setup(Level.Iteration)
+    public void setUp(BenchmarkParams params) {
+        representations = null;
+        before = usedHeap();
+        representations = new RepresentationContainer<>(Greeting::contentTag, RepresentationStore.<String, GreetingRepresentation>none(),
+                "compact".equals(container) ? new GreetingCodec() : null);
+        if (params.getBenchmark().endsWith("read")) {
+            fill();
+        }
+    }
+
+    @Benchmark
+    public RepresentationContainer<String, GreetingRepresentation> fill() {
+        Instant seen = Instant.now();
+        for (int i = 0; i < greetings; i++) {
+            String[] language = LANGUAGES[i % LANGUAGES.length];
+            String[] nativeLanguage = LANGUAGES[i / LANGUAGES.length % LANGUAGES.length];
+            String greeting = "hallo" + i;
+            representations.add(greeting + "_" + language[2], new GreetingRepresentation("Hallo " + i + "!", language[0], language[1],
+                    new GreetingNativeRepresentation(nativeLanguage[0], nativeLanguage[1]), link(greeting, language, i, seen)));
+        }
+        return representations;
+    }
+
+    @Benchmark
+    public int read() {
+        int length = 0;
+        for (int i = 0; i < greetings; i++) {
+            length += representations.get("hallo" + i + "_" + LANGUAGES[i % LANGUAGES.length][2]).getSelf().getHref().length();
+        }
+        return length;
+    }
+
+    /**
+     * a link without {@code templated} can only be read, as the builder always sets it
+     */
+    private HALLink link(String greeting, String[] language, int i, Instant seen) {
+        if ("templated".equals(links)) {
+            return new HALLink.Builder("/greetings/" + greeting)
+                    .title(language[0] + " Hilsen " + i)
+                    .name(language[0] + " Greeting " + i)
+                    .seen(seen)
+                    .templated(false)
+                    .hreflang(language[2])
+                    .type("application/hal+json;concept=greeting")
+                    .build();
+        }
+        try {
+            return linkReader.readValue("{\"href\":\"/greetings/" + greeting + "\",\"title\":\"" + language[0] + " Hilsen " + i
+                    + "\",\"name\":\"" + language[0] + " Greeting " + i + "\",\"seen\":\"" + seen
+                    + "\",\"hreflang\":\"" + language[2] + "\",\"type\":\"application/hal+json;concept=greeting\"}");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        long used = usedHeap() - before;
+        System.out.println(container + ": " + used / (1024 * 1024) + " MB, " + used / greetings + " bytes per greeting");
+        representations = null;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
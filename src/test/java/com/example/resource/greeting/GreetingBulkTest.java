@@ -0,0 +1,224 @@
+package com.example.resource.greeting;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.example.service.ServiceExecutor;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.grizzly.connector.GrizzlyConnectorProvider;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.test.JerseyTest;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GreetingBulkTest extends JerseyTest {
+
+    @Override
+    protected ResourceConfig configure() {
+        return ServiceExecutor.create();
+    }
+
+    @Override
+    protected void configureClient(ClientConfig config) {
+        config.connectorProvider(new GrizzlyConnectorProvider());
+    }
+
+    @Test
+    public void testImportGreetings() {
+        String lines = greeting("goddaw", "Goddaw!", "da") + "\n"
+                + "\n"
+                + greeting("howdy", "Howdy!", null) + "\r\n"
+                + "{\"greeting\":\"Nope\"\n"
+                + greeting("goddaw", "Goddaw igen!", "da") + "\n"
+                + "{\"greeting\":\"No link\"}\n"
+                + greeting("mojn", "Mojn!", "da");
+        Response response = target("greetings:bulk")
+                .request()
+                .acceptLanguage("en")
+                .post(Entity.entity(lines, "application/x-ndjson"), Response.class);
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getMediaType().toString().startsWith("application/x-ndjson"));
+        assertTrue(response.getHeaderString("X-Log-Token") != null);
+        String[] results = response.readEntity(String.class).split("\n");
+        assertEquals(6, results.length);
+        assertTrue(results[0].startsWith("{\"line\":1,\"status\":201,\"href\":\"/greetings/goddaw\",\"etag\":\"\\\""));
+        assertTrue(results[1].startsWith("{\"line\":3,\"status\":201,\"href\":\"/greetings/howdy\""));
+        assertEquals("{\"line\":4,\"status\":400,\"error\":\"the line is not a greeting\"}", results[2]);
+        assertEquals("{\"line\":5,\"status\":409,\"href\":\"/greetings/goddaw\",\"error\":\"the greeting exists\"}", results[3]);
+        assertEquals("{\"line\":6,\"status\":400,\"error\":\"the greeting has no self link to greetings/{greeting}\"}", results[4]);
+        assertTrue(results[5].startsWith("{\"line\":7,\"status\":201,\"href\":\"/greetings/mojn\""));
+
+        response = target("greetings/goddaw").request().accept("application/json").acceptLanguage("da").get();
+        assertEquals(200, response.getStatus());
+        String etag = results[0].substring(results[0].indexOf("\"etag\":") + 8, results[0].length() - 2).replace("\\\"", "\"");
+        assertEquals(etag, response.getHeaderString("ETag"));
+        assertTrue(response.readEntity(String.class).contains("\"greeting\":\"Goddaw!\""));
+        response = target("greetings/howdy").request().accept("application/json").acceptLanguage("en").get();
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void testImportManyGreetings() throws IOException {
+        int count = 200000;
+        Client client = ClientBuilder.newClient().property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED);
+        StreamingOutput lines = output -> {
+            for (int i = 0; i < count; i++) {
+                output.write((greeting("many" + i, "Hej " + i + "!", "da") + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        Response response = client.target(getBaseUri()).path("greetings:bulk")
+                .request()
+                .post(Entity.entity(lines, "application/x-ndjson"), Response.class);
+        assertEquals(200, response.getStatus());
+        try (BufferedReader results = new BufferedReader(new InputStreamReader(response.readEntity(InputStream.class), StandardCharsets.UTF_8))) {
+            int line = 0;
+            String result;
+            while ((result = results.readLine()) != null) {
+                line++;
+                assertTrue(result, result.startsWith("{\"line\":" + line + ",\"status\":201,\"href\":\"/greetings/many" + (line - 1) + "\""));
+            }
+            assertEquals(count, line);
+        } finally {
+            client.close();
+        }
+        response = target("greetings/many" + (count - 1)).request().accept("application/json").acceptLanguage("da").get();
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void testSpool() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GreetingBulk.Spool spool = new GreetingBulk.Spool(16)) {
+            spool.write("0123456789".getBytes(StandardCharsets.UTF_8));
+            assertFalse(spool.isSpilled());
+            spool.write('\n');
+            spool.writeTo(output);
+            assertEquals("0123456789\n", output.toString("UTF-8"));
+            spool.write("abcdefghij".getBytes(StandardCharsets.UTF_8));
+            assertTrue(spool.isSpilled());
+            output.reset();
+            spool.writeTo(output);
+            assertEquals("0123456789\nabcdefghij", output.toString("UTF-8"));
+        }
+    }
+
+    @Test
+    public void testImportMalformedLanguage() {
+        String lines = greeting("hallo-gb", "Hallo!", "en_GB") + "\n"
+                + greeting("hallo-gb", "Hallo!", "en gb") + "\n"
+                + greeting("hallo-gb", "Hallo!", "*") + "\n"
+                + greeting("hallo-gb", "Hallo!", "EN-GB");
+        Response response = target("greetings:bulk")
+                .request()
+                .post(Entity.entity(lines, "application/x-ndjson"), Response.class);
+        assertEquals(200, response.getStatus());
+        String[] results = response.readEntity(String.class).split("\n");
+        assertEquals(4, results.length);
+        assertEquals("{\"line\":1,\"status\":400,\"error\":\"the hreflang en_GB is not a language\"}", results[0]);
+        assertEquals("{\"line\":2,\"status\":400,\"error\":\"the hreflang en gb is not a language\"}", results[1]);
+        assertEquals("{\"line\":3,\"status\":400,\"error\":\"the hreflang * is not a language\"}", results[2]);
+        assertTrue(results[3].startsWith("{\"line\":4,\"status\":201,"));
+        response = target("greetings/hallo-gb").request().accept("application/json").acceptLanguage("en-GB").get();
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void testExportGreetings() {
+        String exported = greeting("export-hej", "Hej!", "da") + "\n"
+                + greeting("export-hi", "Hi!", "en") + "\n"
+                + greeting("export-hola", "Hola!", "es") + "\n"
+                + greeting("export-ciao", "Ciao!", "it");
+        assertEquals(200, target("greetings:bulk").request().post(Entity.entity(exported, "application/x-ndjson")).getStatus());
+        Response response = target("greetings:export")
+                .request()
+                .accept("application/x-ndjson")
+                .get(Response.class);
+        assertEquals(200, response.getStatus());
+        String[] lines = response.readEntity(String.class).split("\n", -1);
+        assertTrue(lines.length >= 5);
+        assertEquals("", lines[lines.length - 1]);
+        for (int i = 0; i < lines.length - 1; i++) {
+            assertTrue(lines[i], lines[i].startsWith("{\"_links\":{\"self\":{"));
+            assertTrue(lines[i], lines[i].contains("\"hreflang\":"));
+            assertTrue(lines[i], lines[i].endsWith("}"));
+        }
+
+        response = target("greetings:bulk")
+                .request()
+                .post(Entity.entity(String.join("\n", lines), "application/x-ndjson"), Response.class);
+        assertEquals(200, response.getStatus());
+        for (String result : response.readEntity(String.class).split("\n")) {
+            assertTrue(result, result.contains("\"status\":409"));
+        }
+    }
+
+    @Test
+    public void testImportWrongContentType() {
+        Response response = target("greetings:bulk")
+                .request()
+                .post(Entity.entity(greeting("davs", "Davs!", "da"), "application/json"), Response.class);
+        assertEquals(415, response.getStatus());
+        response = target("greetings:export").request().post(Entity.entity("", "application/x-ndjson"), Response.class);
+        assertEquals(405, response.getStatus());
+    }
+
+    @Test
+    public void testLines() throws IOException {
+        assertEquals(new ArrayList<>(), lines("", 16));
+        List<String> expected = new ArrayList<>();
+        expected.add("a");
+        expected.add("");
+        expected.add("bc");
+        expected.add("d");
+        assertEquals(expected, lines("a\n\nbc\r\nd", 16));
+        expected.set(3, "TOO LONG");
+        assertEquals(expected, lines("a\n\nbc\r\n01234567890123456789", 16));
+        expected.add("e");
+        assertEquals(expected, lines("a\n\nbc\r\n01234567890123456789\ne\n", 16));
+        StringBuilder longer = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            longer.append((char) ('a' + i % 26));
+        }
+        List<String> read = lines(longer + "\nx\n" + longer, 32 * 1024);
+        assertEquals(3, read.size());
+        assertEquals(longer.toString(), read.get(0));
+        assertEquals("x", read.get(1));
+        assertEquals(longer.toString(), read.get(2));
+        assertFalse(lines(longer + "\nx", 16384).get(0).equals(longer.toString()));
+    }
+
+    private static List<String> lines(String input, int limit) throws IOException {
+        GreetingBulk.Lines lines = new GreetingBulk.Lines(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), limit);
+        List<String> read = new ArrayList<>();
+        while (lines.next()) {
+            read.add(lines.isTooLong() ? "TOO LONG"
+                    : new String(lines.bytes(), lines.offset(), lines.length(), StandardCharsets.UTF_8));
+        }
+        return read;
+    }
+
+    private static String greeting(String name, String greeting, String hreflang) {
+        return "{\"greeting\":\"" + greeting + "\",\"language\":\"Dansk\",\"country\":\"Danmark\","
+                + "\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},"
+                + "\"_links\":{\"self\":{\"href\":\"/greetings/" + name + "\",\"title\":\"Hilsen " + greeting + "\""
+                + (hreflang == null ? "" : ",\"hreflang\":\"" + hreflang + "\"") + "}}}";
+    }
+}
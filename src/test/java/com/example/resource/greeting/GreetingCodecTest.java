@@ -0,0 +1,71 @@
+package com.example.resource.greeting;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.Instant;
+
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import io.openapitools.jackson.dataformat.hal.HALMapper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GreetingCodecTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        GreetingCodec codec = new GreetingCodec();
+        HALLink self = new HALLink.Builder("/greetings/halloj")
+                .title("Dansk Hilsen Halløj")
+                .seen(Instant.now())
+                .name("Danish Greeting Halløj")
+                .templated(false)
+                .hreflang("da")
+                .type("application/hal+json;concept=greeting")
+                .deprecation(new URL("http://example.com/deprecated"))
+                .profile(URI.create("http://example.com/profile"))
+                .build();
+        GreetingRepresentation greeting = new GreetingRepresentation("Halløj!", "Dansk", "Danmark",
+                new GreetingNativeRepresentation("Dansk", "Danmark"), self);
+        byte[] encoded = codec.encode(greeting);
+        GreetingRepresentation decoded = codec.decode(encoded);
+        assertEquals(greeting, decoded);
+        assertEquals(greeting.toHAL(), decoded.toHAL());
+        assertEquals(self.getSeen(), decoded.getSelf().getSeen());
+        assertTrue(encoded.length < 150);
+    }
+
+    @Test
+    public void testMissingParts() throws Exception {
+        GreetingCodec codec = new GreetingCodec();
+        GreetingRepresentation greeting = new HALMapper().readValue(
+                "{\"language\":\"Dansk\",\"_links\":{\"self\":{\"href\":\"/greetings/hej\",\"seen\":\"yesterday\"}}}",
+                GreetingRepresentation.class);
+        GreetingRepresentation decoded = codec.decode(codec.encode(greeting));
+        assertEquals(greeting, decoded);
+        assertEquals("yesterday", decoded.getSelf().getSeen());
+        assertNull(decoded.getSelf().getTemplated());
+        HALMapper mapper = new HALMapper();
+        greeting = mapper.readValue("{\"greeting\":\"Hej!\",\"_links\":{\"self\":{\"href\":\"/greetings/hej\","
+                + "\"seen\":\"2019-01-01T10:00:00Z\",\"hreflang\":\"da\"}}}", GreetingRepresentation.class);
+        decoded = codec.decode(codec.encode(greeting));
+        assertEquals(greeting, decoded);
+        assertNull(decoded.getSelf().getTemplated());
+        assertEquals(mapper.writeValueAsString(greeting), mapper.writeValueAsString(decoded));
+        greeting = new GreetingRepresentation("Hej!", null, null, null, null);
+        assertEquals(greeting, codec.decode(codec.encode(greeting)));
+    }
+
+    @Test
+    public void testRepeatedStringsAreShared() {
+        GreetingCodec codec = new GreetingCodec();
+        for (int i = 0; i < 100; i++) {
+            codec.encode(new GreetingRepresentation("Hej " + i, "Dansk", "Danmark",
+                    new GreetingNativeRepresentation("Danish", "Denmark"),
+                    new HALLink.Builder("/greetings/hej" + i).hreflang("da").type("application/hal+json").build()));
+        }
+        assertEquals(6, codec.dictionarySize());
+    }
+}
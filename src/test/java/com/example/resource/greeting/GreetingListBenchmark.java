@@ -0,0 +1,78 @@
+package com.example.resource.greeting;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.example.RepresentationContainer;
+import com.example.service.ServiceExecutor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building the greetings list document on every request with reusing the document kept by the
+ * {@link RepresentationContainer} until the next change, for a growing number of greetings.
+ * <p>
+ * Run using: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="GreetingListBenchmark -f 0"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GreetingListBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int greetings;
+
+    private RepresentationContainer<String, GreetingRepresentation> representations;
+    private ObjectWriter greetingsWriter;
+
+    @Setup
+    public void setUp() {
+        greetingsWriter = ServiceExecutor.createMappers().writer(GreetingsRepresentation.class);
+        representations = new RepresentationContainer<>();
+        for (int i = 0; i < greetings; i++) {
+            String greeting = "hallo" + i;
+            representations.add(greeting + "_da", new GreetingRepresentation("Hallo " + i + "!", "Dansk", "Danmark",
+                    new GreetingNativeRepresentation("Dansk", "Danmark"),
+                    new HALLink.Builder("/greetings/" + greeting).title("Dansk Hilsen " + i).type("application/hal+json").build()));
+        }
+    }
+
+    @Benchmark
+    public byte[] rebuildPerRequest() throws JsonProcessingException {
+        Collection<GreetingRepresentation> greetingsList = representations.values()
+                .stream()
+                .map(gr -> new GreetingRepresentation(gr))
+                .collect(Collectors.toList());
+        return greetingsWriter.writeValueAsBytes(new GreetingsRepresentation("This is the information v2HAL", greetingsList));
+    }
+
+    @Benchmark
+    public byte[] reuseDocument() {
+        return representations.getDocument("application/hal+json;concept=greetings;v=2", this::render);
+    }
+
+    private byte[] render(Collection<GreetingRepresentation> greetingsList) {
+        try {
+            return greetingsWriter.writeValueAsBytes(new GreetingsRepresentation("This is the information v2HAL", greetingsList));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.resource.greeting;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import com.example.RepresentationMappers;
+import com.example.service.ServiceExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GreetingListOutputTest {
+
+    private final RepresentationMappers mappers = ServiceExecutor.createMappers();
+    private final List<GreetingRepresentation> greetings = Arrays.asList(
+            new GreetingRepresentation("Hallo!", "Dansk", "Danmark", new GreetingNativeRepresentation("Dansk", "Danmark"),
+                    new HALLink.Builder("/greetings/hallo").title("Dansk Hilsen Hallo").build()),
+            new GreetingRepresentation("Hello!", "English", "England", new GreetingNativeRepresentation("English", "England"),
+                    new HALLink.Builder("/greetings/hello").title("English Greeting \"Hello\"").build()));
+
+    @Test
+    public void testV2IsTheSameAsTheRepresentation() throws IOException {
+        GreetingsRepresentation expected = new GreetingsRepresentation("info", "/greetings?limit=2", greetings, greetings,
+                "/greetings?limit=2&cursor=aGVsbG9fZW4", "/greetings?limit=2&cursor=YQ");
+        assertEquals(tree(mappers.writer(GreetingsRepresentation.class).writeValueAsBytes(expected)),
+                tree(write(GreetingListOutput.v2(mappers.writer(GreetingRepresentation.class), mappers.writer(HALLink.class),
+                        "info", "/greetings?limit=2", greetings, gr -> gr,
+                        "/greetings?limit=2&cursor=aGVsbG9fZW4", "/greetings?limit=2&cursor=YQ"))));
+    }
+
+    @Test
+    public void testV2LinksOnly() throws IOException {
+        GreetingsRepresentation expected = new GreetingsRepresentation("info", "/greetings?embedded=false", greetings, null, null, null);
+        assertEquals(tree(mappers.writer(GreetingsRepresentation.class).writeValueAsBytes(expected)),
+                tree(write(GreetingListOutput.v2(mappers.writer(GreetingRepresentation.class), mappers.writer(HALLink.class),
+                        "info", "/greetings?embedded=false", greetings, null, null, null))));
+    }
+
+    @Test
+    public void testV2TakesTheGreetingsOnce() throws IOException {
+        Collection<GreetingRepresentation> live = new AbstractCollection<GreetingRepresentation>() {
+            private int iterations;
+
+            @Override
+            public Iterator<GreetingRepresentation> iterator() {
+                return greetings.subList(iterations++ % 2, 2).iterator();
+            }
+
+            @Override
+            public int size() {
+                return 2 - iterations % 2;
+            }
+        };
+        JsonNode list = tree(write(GreetingListOutput.v2(mappers.writer(GreetingRepresentation.class), mappers.writer(HALLink.class),
+                "info", "/greetings", live, gr -> gr, null, null)));
+        assertEquals(2, list.at("/_links/greetings").size());
+        assertEquals(2, list.at("/_embedded/greetings").size());
+        assertEquals("/greetings/hallo", list.at("/_links/greetings/0/href").asText());
+        assertEquals("/greetings/hallo", list.at("/_embedded/greetings/0/_links/self/href").asText());
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        JsonNode batch = tree(write(GreetingListOutput.batch(mappers.writer(GreetingRepresentation.class), mappers.writer(HALLink.class),
+                "info", "/greetings?ids=hallo,hello,hej", greetings, Arrays.asList("\"a\"", "\"b\""), gr -> gr,
+                Collections.singletonList("hej"))));
+        JsonNode expected = tree(mappers.writer(GreetingRepresentation.class).writeValueAsBytes(greetings.get(1)));
+        ((ObjectNode) expected).put("etag", "\"b\"");
+        assertEquals(expected, batch.at("/_embedded/greetings/1"));
+        assertEquals("\"a\"", batch.at("/_embedded/greetings/0/etag").asText());
+        assertEquals("/greetings/hello", batch.at("/_links/greetings/1/href").asText());
+        assertEquals("hej", batch.at("/missing/0").asText());
+
+        batch = tree(write(GreetingListOutput.batch(mappers.writer(GreetingRepresentation.class), mappers.writer(HALLink.class),
+                "info", "/greetings?ids=hallo", greetings.subList(0, 1), Collections.singletonList("\"a\""), gr -> gr,
+                Collections.emptyList())));
+        assertEquals(1, batch.at("/_embedded/greetings").size());
+        assertTrue(batch.path("missing").isMissingNode());
+    }
+
+    @Test
+    public void testV1() throws IOException {
+        JsonNode list = tree(write(GreetingListOutput.v1(mappers.writer(GreetingsRepresentation.class), 1, "/greetings",
+                greetings, null, null)));
+        assertEquals("a list containing current greetings", list.at("/greetings/info").asText());
+        assertEquals("application/hal+json;concept=greetinglist;v=1", list.at("/greetings/_links/self/type").asText());
+        assertEquals("/greetings/hallo", list.at("/greetings/_links/greetings/0/href").asText());
+        assertEquals("English Greeting \"Hello\"", list.at("/greetings/_links/greetings/1/title").asText());
+        assertEquals(2, list.at("/greetings/_links/greetings").size());
+    }
+
+    private static byte[] write(StreamingOutput output) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        output.write(bytes);
+        return bytes.toByteArray();
+    }
+
+    private static JsonNode tree(byte[] json) throws IOException {
+        return new ObjectMapper().readTree(json);
+    }
+}
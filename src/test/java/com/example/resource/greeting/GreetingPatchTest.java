@@ -1,6 +1,12 @@
 package com.example.resource.greeting;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
@@ -9,6 +15,7 @@ import javax.ws.rs.core.Response;
 
 import com.example.service.ServiceExecutor;
 import com.example.service.patch.JSONPatchContainer;
+import com.example.service.patch.JSONPatchReader;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.grizzly.connector.GrizzlyConnectorProvider;
@@ -208,7 +215,7 @@ public class GreetingPatchTest extends JerseyTest {
                                 "application/patch+json"),
                         Response.class);
         assertEquals(400, response.getStatus());
-        assertTrue(response.readEntity(String.class).contains("{\"error\":\"only operation replace is supported\"}"));
+        assertTrue(response.readEntity(String.class).contains("{\"error\":\"op someotherop is not supported, the operations are add, remove, replace, move, copy and test\"}"));
     }
 
     @Test
@@ -244,7 +251,7 @@ public class GreetingPatchTest extends JerseyTest {
                         Response.class);
         assertEquals(400, response.getStatus());
         String msg = response.readEntity(String.class);
-        assertTrue(msg.contains("value was not replaced"));
+        assertTrue(msg.contains("/nonexisting does not exist"));
         response = target
                 .request()
                 .acceptLanguage("son")
@@ -255,7 +262,169 @@ public class GreetingPatchTest extends JerseyTest {
                         Response.class);
         assertEquals(400, response.getStatus());
         msg = response.readEntity(String.class);
-        assertTrue(msg.contains("value could not be replaced"));
+        assertTrue(msg.contains("value could not be converted to /_links/self"));
+    }
+
+    @Test
+    public void testAddAndTestGreeting() {
+        final WebTarget target = target("greetings/moin");
+        String entity = "{\"greeting\":\"Moin!\",\"language\":\"Dansk\",\"country\":\"Danmark\",\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},\"_links\":{\"self\":{\"href\":\"greetings/moin\",\"title\":\"Sønderjysk Hilsen Moin\"}}}";
+        Response response = target
+                .request()
+                .acceptLanguage("son")
+                .method("PUT", Entity.entity(entity, "application/json"), Response.class);
+        assertEquals(201, response.getStatus());
+        response = target
+                .request()
+                .acceptLanguage("son")
+                .header("If-None-Match", response.getEntityTag())
+                .method("PATCH",
+                        Entity.entity("{\"op\":\"add\",\"path\":\"/_links/self/name\",\"value\":\"Moin\"}",
+                                "application/patch+json"),
+                        Response.class);
+        assertEquals(200, response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("patch is applied"));
+        response = target
+                .request()
+                .accept("application/json")
+                .acceptLanguage("son")
+                .get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("\"name\":\"Moin\""));
+        response = target
+                .request()
+                .acceptLanguage("son")
+                .header("If-None-Match", response.getEntityTag())
+                .method("PATCH",
+                        Entity.entity("{\"op\":\"test\",\"path\":\"/language\",\"value\":\"Synnejysk\"}",
+                                "application/patch+json"),
+                        Response.class);
+        assertEquals(400, response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("test of /language failed"));
+    }
+
+    @Test
+    public void testPatchSeveralOperationsAtOnce() {
+        final WebTarget target = target("greetings/goddag");
+        String entity = "{\"greeting\":\"Goddag!\",\"language\":\"Dansk\",\"country\":\"Danmark\",\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},\"_links\":{\"self\":{\"href\":\"greetings/goddag\",\"title\":\"Sønderjysk Hilsen Goddag\"}}}";
+        Response response = target
+                .request()
+                .acceptLanguage("son")
+                .method("PUT", Entity.entity(entity, "application/json"), Response.class);
+        assertEquals(201, response.getStatus());
+        String patch = "["
+                + "{\"op\":\"test\",\"path\":\"/language\",\"value\":\"Dansk\"},"
+                + "{\"op\":\"replace\",\"path\":\"/language\",\"value\":\"Synnejysk\"},"
+                + "{\"op\":\"replace\",\"path\":\"/native/country\",\"value\":\"Sønderjylland\"},"
+                + "{\"op\":\"add\",\"path\":\"/_links/self/name\",\"value\":\"Goddag\"}"
+                + "]";
+        response = target
+                .request()
+                .acceptLanguage("son")
+                .header("If-None-Match", response.getEntityTag())
+                .method("PATCH", Entity.entity(patch, "application/patch+json"), Response.class);
+        assertEquals(200, response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("patch is applied"));
+        EntityTag patched = response.getEntityTag();
+        response = target
+                .request()
+                .accept("application/json")
+                .acceptLanguage("son")
+                .get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertEquals(patched, response.getEntityTag());
+        String msg = response.readEntity(String.class);
+        assertTrue(msg.contains("\"language\":\"Synnejysk\""));
+        assertTrue(msg.contains("\"country\":\"Sønderjylland\""));
+        assertTrue(msg.contains("\"name\":\"Goddag\""));
+
+        patch = "["
+                + "{\"op\":\"replace\",\"path\":\"/greeting\",\"value\":\"Goddaw!\"},"
+                + "{\"op\":\"test\",\"path\":\"/language\",\"value\":\"Dansk\"}"
+                + "]";
+        response = target
+                .request()
+                .acceptLanguage("son")
+                .header("If-None-Match", patched)
+                .method("PATCH", Entity.entity(patch, "application/patch+json"), Response.class);
+        assertEquals(400, response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("test of /language failed"));
+        response = target
+                .request()
+                .accept("application/json")
+                .acceptLanguage("son")
+                .get(Response.class);
+        assertEquals(patched, response.getEntityTag());
+        assertTrue(response.readEntity(String.class).contains("\"greeting\":\"Goddag!\""));
+    }
+
+    @Test
+    public void testConcurrentPatchesBasedOnSameETag() throws Exception {
+        final WebTarget target = target("greetings/mojn");
+        String entity = "{\"greeting\":\"Mojn!\",\"language\":\"Dansk\",\"country\":\"Danmark\",\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},\"_links\":{\"self\":{\"href\":\"greetings/mojn\",\"title\":\"Sønderjysk Hilsen Mojn\"}}}";
+        Response response = target
+                .request()
+                .acceptLanguage("son")
+                .method("PUT", Entity.entity(entity, "application/json"), Response.class);
+        assertEquals(201, response.getStatus());
+        EntityTag eTag = response.getEntityTag();
+        int patches = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(patches);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (int i = 0; i < patches; i++) {
+                String language = "Synnejysk" + i;
+                statuses.add(executor.submit(() -> target
+                        .request()
+                        .acceptLanguage("son")
+                        .header("If-None-Match", eTag)
+                        .method("PATCH",
+                                Entity.entity("{\"op\":\"replace\",\"path\":\"language\",\"value\":\"" + language + "\"}",
+                                        "application/patch+json"),
+                                Response.class)
+                        .getStatus()));
+            }
+            int replaced = 0;
+            for (Future<Integer> status : statuses) {
+                if (status.get(10, TimeUnit.SECONDS) == 200) {
+                    replaced++;
+                } else {
+                    assertEquals(409, (int) status.get());
+                }
+            }
+            assertEquals(1, replaced);
+        } finally {
+            executor.shutdown();
+        }
+        response = target
+                .request()
+                .accept("application/json")
+                .acceptLanguage("son")
+                .get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertTrue(response.readEntity(String.class).contains("\"language\":\"Synnejysk"));
+    }
+
+    @Test
+    public void testUpdateTooLargePatch() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i <= JSONPatchReader.LIMIT; i++) {
+            value.append('x');
+        }
+        Response response = target("greetings/hallo")
+                .request()
+                .acceptLanguage("en")
+                .method("PATCH",
+                        Entity.entity("{\"op\":\"replace\",\"path\":\"language\",\"value\":\"" + value + "\"}",
+                                "application/patch+json"),
+                        Response.class);
+        assertEquals(413, response.getStatus());
+        response = target("greetings/hallo")
+                .request()
+                .accept("application/json")
+                .acceptLanguage("en")
+                .get(Response.class);
+        assertFalse(response.readEntity(String.class).contains("xxx"));
     }
 
     @Test
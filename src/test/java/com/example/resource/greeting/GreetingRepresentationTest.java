@@ -47,6 +47,20 @@ public class GreetingRepresentationTest {
         assertEquals(greetingObj, greeting);
     }
 
+    @Test
+    public void testNullPropertiesAreLeftOutOnlyWhenProjected() throws JsonProcessingException {
+        ObjectMapper mapper = new HALMapper();
+        HALLink self = new HALLink.Builder("/greetings/hello").title("Hello").build();
+        String greeting = mapper.writeValueAsString(new GreetingRepresentation("Hello", "English", null, null, self));
+        assertTrue(greeting.contains("\"country\":null"));
+        assertTrue(greeting.contains("\"native\":null"));
+        String projected = mapper.writeValueAsString(new ProjectedGreetingRepresentation("Hello", null, null, null, self));
+        assertTrue(projected.contains("\"greeting\":\"Hello\""));
+        assertFalse(projected.contains("language"));
+        assertFalse(projected.contains("native"));
+        assertTrue(projected.contains("\"_links\":{\"self\":{\"href\":\"/greetings/hello\""));
+    }
+
     @Test
     public void testEquals() throws IOException {
         GreetingNativeRepresentation nativ = new GreetingNativeRepresentation("English", "England");
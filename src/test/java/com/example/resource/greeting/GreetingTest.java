@@ -1,6 +1,15 @@
 package com.example.resource.greeting;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
@@ -9,6 +18,8 @@ import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
 
 import com.example.service.ServiceExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.glassfish.grizzly.http.server.HttpServer;
 import org.junit.After;
 import org.junit.Before;
@@ -17,6 +28,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 public class GreetingTest {
@@ -103,6 +115,245 @@ public class GreetingTest {
         assertEquals(304, response.getStatus());
     }
 
+    @Test
+    public void testNotModifiedPage() {
+        Response response = target.path("greetings").queryParam("limit", "2")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(200, response.getStatus());
+        String etag = response.getHeaderString("etag");
+        assertTrue(etag, etag.matches("\"[0-9a-f]{16}\""));
+        response = target.path("greetings").queryParam("limit", "2")
+                .request().accept("application/hal+json").acceptLanguage("da").header("If-None-Match", etag).get(Response.class);
+        assertEquals(304, response.getStatus());
+
+        Set<String> etags = new HashSet<>();
+        etags.add(etag);
+        etags.add(target.path("greetings").queryParam("limit", "2").queryParam("embedded", "false")
+                .request().accept("application/hal+json").get(Response.class).getHeaderString("etag"));
+        etags.add(target.path("greetings").queryParam("limit", "2").queryParam("fields", "greeting")
+                .request().accept("application/hal+json").get(Response.class).getHeaderString("etag"));
+        etags.add(target.path("greetings").queryParam("limit", "20")
+                .request().accept("application/hal+json").get(Response.class).getHeaderString("etag"));
+        etags.add(target.path("greetings").request().accept("application/hal+json").get(Response.class).getHeaderString("etag"));
+        assertEquals(5, etags.size());
+    }
+
+    @Test
+    public void testGetGreetingsListInPages() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Response response = target.path("greetings").request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        int total = mapper.readTree(response.readEntity(String.class)).at("/_links/greetings").size();
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        boolean first = true;
+        do {
+            response = target.path("greetings").queryParam("limit", "2").queryParam("cursor", cursor)
+                    .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+            assertEquals(200, response.getStatus());
+            assertNotNull(response.getHeaderString("etag"));
+            JsonNode page = mapper.readTree(response.readEntity(String.class));
+            assertTrue(page.at("/_links/greetings").size() <= 2);
+            assertEquals(page.at("/_links/greetings").size(), page.at("/_embedded/greetings").size());
+            page.at("/_embedded/greetings").forEach(greeting -> seen.add(greeting.toString()));
+            assertEquals(first, page.path("_links").path("prev").isMissingNode());
+            first = false;
+            String next = page.at("/_links/next/href").asText(null);
+            cursor = next == null ? null : next.replaceFirst(".*cursor=", "");
+        } while (cursor != null);
+        assertEquals(total, seen.size());
+        assertEquals(total, new HashSet<>(seen).size());
+    }
+
+    @Test
+    public void testGetGreetingsListByLanguageAndCountry() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Response response = target.path("greetings").queryParam("language", "english")
+                .request().accept("application/hal+json").get(Response.class);
+        assertEquals(200, response.getStatus());
+        JsonNode list = mapper.readTree(response.readEntity(String.class));
+        assertTrue(list.at("/_embedded/greetings").size() > 0);
+        list.at("/_embedded/greetings").forEach(greeting -> assertEquals("English", greeting.get("language").asText()));
+        assertEquals("/greetings?language=english", list.at("/_links/self/href").asText());
+
+        response = target.path("greetings").queryParam("country", "Danmark").queryParam("native.language", "danish")
+                .request().accept("application/hal+json").get(Response.class);
+        assertEquals(200, response.getStatus());
+        list = mapper.readTree(response.readEntity(String.class));
+        assertTrue(list.at("/_embedded/greetings").size() > 0);
+        list.at("/_embedded/greetings").forEach(greeting -> {
+            assertEquals("Danmark", greeting.get("country").asText());
+            assertEquals("Danish", greeting.at("/native/language").asText());
+        });
+
+        response = target.path("greetings").queryParam("language", "klingon")
+                .request().accept("application/hal+json").get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertEquals(0, mapper.readTree(response.readEntity(String.class)).at("/_links/greetings").size());
+    }
+
+    @Test
+    public void testSearchGreetingsList() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Response response = target.path("greetings").queryParam("q", "HAL")
+                .request().accept("application/hal+json").get(Response.class);
+        assertEquals(200, response.getStatus());
+        JsonNode list = mapper.readTree(response.readEntity(String.class));
+        assertTrue(list.at("/_embedded/greetings").size() > 0);
+        list.at("/_embedded/greetings").forEach(greeting -> assertTrue(greeting.get("greeting").asText().startsWith("Hal")));
+        assertEquals("/greetings?q=hal", list.at("/_links/self/href").asText());
+
+        response = target.path("greetings").queryParam("q", "english greeting hel").queryParam("language", "english")
+                .request().accept("application/hal+json").get(Response.class);
+        list = mapper.readTree(response.readEntity(String.class));
+        assertTrue(list.at("/_embedded/greetings").size() > 0);
+        list.at("/_embedded/greetings").forEach(greeting -> assertEquals("Hello!", greeting.get("greeting").asText()));
+
+        response = target.path("greetings").queryParam("q", "zzz")
+                .request().accept("application/hal+json").get(Response.class);
+        assertEquals(0, mapper.readTree(response.readEntity(String.class)).at("/_links/greetings").size());
+    }
+
+    @Test
+    public void testGetGreetingsListCompressed() throws IOException {
+        Response plain = target.path("greetings").request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        Response response = target.path("greetings").request().accept("application/hal+json").acceptLanguage("da")
+                .header("Accept-Encoding", "gzip").get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertEquals("gzip", response.getHeaderString("Content-Encoding"));
+        assertTrue(response.getHeaderString("Vary").contains("Accept-Encoding"));
+        assertEquals(plain.getHeaderString("ETag"), response.getHeaderString("ETag"));
+        assertEquals(plain.readEntity(String.class), gunzip(response.readEntity(byte[].class)));
+
+        plain = target.path("greetings").queryParam("limit", "100").request().accept("application/hal+json").get(Response.class);
+        response = target.path("greetings").queryParam("limit", "100").request().accept("application/hal+json")
+                .header("Accept-Encoding", "deflate, gzip;q=0.8").get(Response.class);
+        assertEquals("gzip", response.getHeaderString("Content-Encoding"));
+        assertEquals(plain.readEntity(String.class), gunzip(response.readEntity(byte[].class)));
+
+        response = target.path("greetings/hallo").request().accept("application/hal+json").acceptLanguage("da")
+                .header("Accept-Encoding", "gzip").get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeaderString("Content-Encoding"));
+        assertTrue(response.readEntity(String.class).contains("\"greeting\":\"Hallo!\""));
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n = in.read(buffer); n > 0; n = in.read(buffer)) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testGetGreetingsListLinksOnlyAndProjected() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Response response = target.path("greetings").queryParam("embedded", "false")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(200, response.getStatus());
+        JsonNode list = mapper.readTree(response.readEntity(String.class));
+        assertTrue(list.at("/_links/greetings").size() > 0);
+        assertTrue(list.path("_embedded").isMissingNode());
+        assertEquals("/greetings?embedded=false", list.at("/_links/self/href").asText());
+
+        response = target.path("greetings").queryParam("limit", "1").queryParam("fields", "greeting")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(200, response.getStatus());
+        list = mapper.readTree(response.readEntity(String.class));
+        JsonNode greeting = list.at("/_embedded/greetings/0");
+        assertTrue(greeting.has("greeting"));
+        assertTrue(greeting.has("_links"));
+        assertFalse(greeting.has("language"));
+        assertFalse(greeting.has("native"));
+        assertTrue(list.at("/_links/next/href").asText().startsWith("/greetings?limit=1&cursor="));
+        assertTrue(list.at("/_links/next/href").asText().endsWith("&fields=greeting"));
+        assertTrue(list.path("_links").path("prev").isMissingNode());
+
+        response = target.path("greetings").queryParam("fields", "unknown")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(400, response.getStatus());
+        response = target.path("greetings").queryParam("cursor", "-")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(400, response.getStatus());
+        response = target.path("greetings").queryParam("limit", "0")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(400, response.getStatus());
+        response = target.path("greetings").queryParam("limit", "101")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testGetGreetingsBatch() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        Response response = target.path("greetings").queryParam("ids", "hallo,hello,nosuch,hallo")
+                .request().accept("application/hal+json").acceptLanguage("fr, en;q=0.5").get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertEquals("application/hal+json;concept=greetings;v=2", response.getMediaType().toString());
+        String etag = response.getHeaderString("ETag");
+        assertNotNull(etag);
+        JsonNode batch = mapper.readTree(response.readEntity(String.class));
+        assertEquals("/greetings?ids=hallo,hello,nosuch", batch.at("/_links/self/href").asText());
+        assertEquals(2, batch.at("/_embedded/greetings").size());
+        assertEquals("/greetings/hallo", batch.at("/_embedded/greetings/0/_links/self/href").asText());
+        assertEquals("/greetings/hello", batch.at("/_embedded/greetings/1/_links/self/href").asText());
+        assertEquals(1, batch.at("/missing").size());
+        assertEquals("nosuch", batch.at("/missing/0").asText());
+        Response single = target.path("greetings/hallo").request().accept("application/hal+json").acceptLanguage("en").get(Response.class);
+        assertEquals(single.getHeaderString("ETag"), batch.at("/_embedded/greetings/0/etag").asText());
+
+        response = target.path("greetings").queryParam("ids", "hallo,hello,nosuch")
+                .request().accept("application/hal+json").acceptLanguage("fr, en;q=0.5").header("If-None-Match", etag).get(Response.class);
+        assertEquals(304, response.getStatus());
+        response = target.path("greetings").queryParam("ids", "hallo").queryParam("fields", "greeting")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(200, response.getStatus());
+        JsonNode greeting = mapper.readTree(response.readEntity(String.class)).at("/_embedded/greetings/0");
+        assertEquals("Hallo!", greeting.get("greeting").asText());
+        assertFalse(greeting.has("language"));
+        assertTrue(greeting.get("etag").asText().startsWith("\""));
+
+        response = target.path("greetings").queryParam("ids", "hallo").queryParam("limit", "2")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(400, response.getStatus());
+        response = target.path("greetings").queryParam("ids", "hallo,,hello")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(400, response.getStatus());
+        response = target.path("greetings").queryParam("ids", "Hallo")
+                .request().accept("application/hal+json").acceptLanguage("da").get(Response.class);
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void testGetGreetingsListPageV1() throws IOException {
+        Response response = target.path("greetings").queryParam("limit", "1")
+                .request().accept("application/hal+json;concept=greetings;v=1").acceptLanguage("da").get(Response.class);
+        assertEquals(200, response.getStatus());
+        JsonNode list = new ObjectMapper().readTree(response.readEntity(String.class));
+        assertEquals(1, list.at("/greetings/_links/greetings").size());
+        assertEquals("/greetings?limit=1", list.at("/greetings/_links/self/href").asText());
+        String next = list.at("/greetings/_links/next/href").asText();
+        response = target.path("greetings").queryParam("limit", "1").queryParam("cursor", next.replaceFirst(".*cursor=", ""))
+                .request().accept("application/hal+json;concept=greetings;v=1").acceptLanguage("da").get(Response.class);
+        list = new ObjectMapper().readTree(response.readEntity(String.class));
+        assertEquals("/greetings?limit=1", list.at("/greetings/_links/prev/href").asText());
+    }
+
+    @Test
+    public void testWriteMetrics() throws IOException {
+        String entity = "{\"greeting\":\"Goddag!\",\"language\":\"Dansk\",\"country\":\"Danmark\",\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},\"_links\":{\"self\":{\"href\":\"greetings/goddag\",\"title\":\"Dansk Hilsen Goddag\"}}}";
+        Response response = target.path("greetings/goddag").request().accept("application/hal+json").acceptLanguage("da").put(Entity.json(entity));
+        assertTrue(response.getStatus() == 201 || response.getStatus() == 200);
+        response = target.path("metrics/greetings/writes").request().accept("application/json").get(Response.class);
+        assertEquals(200, response.getStatus());
+        JsonNode metrics = new ObjectMapper().readTree(response.readEntity(String.class));
+        assertTrue(metrics.at("/batchSize/count").asLong() > 0);
+        assertTrue(metrics.at("/latencyMicros/max").asLong() > 0);
+    }
+
     @Test
     public void testGetDynamicGreetingsListV1() {
         Response response = target.path("greetings").request().accept("application/hal+json;concept=greetings;v=1").acceptLanguage("da").get(Response.class);
@@ -184,6 +435,24 @@ public class GreetingTest {
         assertEquals("application/hal+json;concept=greeting;v=3", contentType);
         assertNotNull(response.getHeaders().get("X-Log-Token"));
     }
+    @Test
+    public void testHelloGreetingFromEnglishV3Negotiated() {
+        Response response = target
+                .path("greetings/hello")
+                .request()
+                .header("Accept", "application/json;q=0.5, application/hal+json; concept=greeting; v=3")
+                .acceptLanguage("en").get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertEquals("application/hal+json;concept=greeting;v=3", response.getMediaType().toString());
+        response = target
+                .path("greetings")
+                .request()
+                .header("Accept", "application/hal+json; concept=greetings; v=1")
+                .get(Response.class);
+        assertEquals(200, response.getStatus());
+        assertEquals("application/hal+json;concept=greetings;v=1", response.getMediaType().toString());
+    }
+
     @Test
     public void testNonexistentGreetingFromEnglishV3() {
         Response response = target
@@ -402,12 +671,21 @@ public class GreetingTest {
                 .acceptLanguage(" en-gb")
                 .get(Response.class);
         msg = response.readEntity(String.class);
-        assertEquals(nonExisting, msg);
+        assertTrue(msg.contains("\"native\":{\"language\":\"Danish\",\"country\":\"Denmark\"}"));
+        assertTrue(msg.contains("\"title\":\"Danish Greeting Hallo\""));
+        response = target
+                .path("greetings/hallo")
+                .request()
+                .accept("application/hal+json")
+                .acceptLanguage("en-us, da;q=0.8, fr;q=0.5")
+                .get(Response.class);
+        msg = response.readEntity(String.class);
+        assertTrue(msg.contains("\"native\":{\"language\":\"Danish\",\"country\":\"Denmark\"}"));
         response = target
                 .path("greetings/hallo")
                 .request()
                 .accept("application/hal+json")
-                .acceptLanguage("en-us, en-gb;q=0.8, fr;q=0.5")
+                .acceptLanguage("fr-ca, de-at;q=0.8, es;q=0.5")
                 .get(Response.class);
         msg = response.readEntity(String.class);
         assertEquals(nonExisting, msg);
@@ -0,0 +1,86 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares many consumers polling a greeting over HTTP/1.1 keep-alive connections with the same consumers
+ * multiplexing their requests over HTTP/2 (h2c) connections to the same server.
+ * <p>
+ * The consumers share a client, which opens a connection per concurrent request for HTTP/1.1 and shares a
+ * single connection for HTTP/2. The number of connections opened is printed when an iteration ends.
+ * <p>
+ * Run using: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="Http2Benchmark -f 0"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(64)
+@Fork(1)
+public class Http2Benchmark {
+
+    @Param({"http/1.1", "h2c"})
+    private String protocol;
+
+    private HttpServer server;
+    private OkHttpClient client;
+    private Request request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = ServiceExecutor.startServer(ServerConfig.from(key -> "greetings.server.http2".equals(key) ? "true" : null));
+        client = new OkHttpClient.Builder()
+                .protocols(Collections.singletonList("h2c".equals(protocol) ? Protocol.H2_PRIOR_KNOWLEDGE : Protocol.HTTP_1_1))
+                .connectionPool(new ConnectionPool(256, 1, TimeUnit.MINUTES))
+                .build();
+        request = new Request.Builder()
+                .url("http://localhost:8080/greetings/hallo")
+                .header("Accept", "application/hal+json")
+                .header("Accept-Language", "da")
+                .build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void connections() {
+        System.out.println("connections: " + client.connectionPool().connectionCount());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public int poll() throws IOException {
+        try (Response response = client.newCall(request).execute()) {
+            return response.body().bytes().length;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class ResponseExecutorTest {
+
+    @Test
+    public void testResumesWithResponse() {
+        try (ResponseExecutor executor = new ResponseExecutor(1, 1, 1, TimeUnit.SECONDS)) {
+            AsyncResponse asyncResponse = mock(AsyncResponse.class);
+            Response ok = Response.ok().build();
+            executor.execute(asyncResponse, "log-token", () -> ok);
+            verify(asyncResponse).setTimeout(1000, TimeUnit.MILLISECONDS);
+            verify(asyncResponse, timeout(1000)).resume(ok);
+        }
+    }
+
+    @Test
+    public void testResumesWithException() {
+        try (ResponseExecutor executor = new ResponseExecutor(1, 1, 1, TimeUnit.SECONDS)) {
+            AsyncResponse asyncResponse = mock(AsyncResponse.class);
+            IllegalStateException failure = new IllegalStateException("failed");
+            executor.execute(asyncResponse, "log-token", () -> {
+                throw failure;
+            });
+            verify(asyncResponse, timeout(1000)).resume(failure);
+        }
+    }
+
+    @Test
+    public void testTooManyRequests() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        try (ResponseExecutor executor = new ResponseExecutor(1, 1, 2, TimeUnit.SECONDS)) {
+            executor.execute(mock(AsyncResponse.class), "first", () -> await(release));
+            executor.execute(mock(AsyncResponse.class), "second", () -> await(release));
+            AsyncResponse rejected = mock(AsyncResponse.class);
+            executor.execute(rejected, "third", () -> Response.ok().build());
+            ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+            verify(rejected).resume(response.capture());
+            assertEquals(429, response.getValue().getStatus());
+            assertEquals("2", response.getValue().getHeaderString("Retry-After"));
+            assertEquals("third", response.getValue().getHeaderString("X-Log-Token"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testServiceUnavailableOnTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean stored = new AtomicBoolean();
+        try (ResponseExecutor executor = new ResponseExecutor(1, 1, 500, TimeUnit.MILLISECONDS)) {
+            executor.execute(mock(AsyncResponse.class), "first", () -> await(release));
+            AsyncResponse asyncResponse = mock(AsyncResponse.class);
+            executor.execute(asyncResponse, "log-token", () -> {
+                stored.set(true);
+                return Response.ok().build();
+            });
+            ArgumentCaptor<TimeoutHandler> handler = ArgumentCaptor.forClass(TimeoutHandler.class);
+            verify(asyncResponse).setTimeoutHandler(handler.capture());
+            AsyncResponse timedOut = mock(AsyncResponse.class);
+            handler.getValue().handleTimeout(timedOut);
+            ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+            verify(timedOut).resume(response.capture());
+            assertEquals(503, response.getValue().getStatus());
+            assertEquals("1", response.getValue().getHeaderString("Retry-After"));
+            assertEquals("log-token", response.getValue().getHeaderString("X-Log-Token"));
+
+            release.countDown();
+            AsyncResponse next = mock(AsyncResponse.class);
+            Response ok = Response.ok().build();
+            executor.execute(next, "next", () -> ok);
+            verify(next, timeout(1000)).resume(ok);
+            assertFalse(stored.get());
+            verify(asyncResponse, never()).resume(any(Response.class));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testTimeoutIsExtendedOnceWorkHasStarted() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean stored = new AtomicBoolean();
+        try (ResponseExecutor executor = new ResponseExecutor(1, 1, 500, TimeUnit.MILLISECONDS)) {
+            AsyncResponse asyncResponse = mock(AsyncResponse.class);
+            Response created = Response.status(Response.Status.CREATED).build();
+            executor.execute(asyncResponse, "log-token", () -> {
+                started.countDown();
+                await(release);
+                stored.set(true);
+                return created;
+            });
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+            ArgumentCaptor<TimeoutHandler> handler = ArgumentCaptor.forClass(TimeoutHandler.class);
+            verify(asyncResponse).setTimeoutHandler(handler.capture());
+            AsyncResponse timedOut = mock(AsyncResponse.class);
+            handler.getValue().handleTimeout(timedOut);
+            verify(timedOut).setTimeout(500, TimeUnit.MILLISECONDS);
+            verify(timedOut, never()).resume(any(Response.class));
+
+            release.countDown();
+            verify(asyncResponse, timeout(1000)).resume(created);
+            assertTrue(stored.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static Response await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Response.ok().build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.glassfish.grizzly.http.server.NetworkListener;
+import org.glassfish.grizzly.nio.transport.TCPNIOTransport;
+import org.glassfish.grizzly.strategies.LeaderFollowerNIOStrategy;
+import org.glassfish.grizzly.strategies.WorkerThreadIOStrategy;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ServerConfigTest {
+
+    @Test
+    public void testDefaults() {
+        ServerConfig config = ServerConfig.from(key -> null);
+        assertEquals(URI.create(ServiceExecutor.BASE_URI), config.getBaseUri());
+        assertEquals("platform", config.getThreads());
+        NetworkListener listener = listener();
+        listener.getTransport().setIOStrategy(WorkerThreadIOStrategy.getInstance());
+        int workers = listener.getTransport().getWorkerThreadPoolConfig().getMaxPoolSize();
+        config.configure(server(listener), null);
+        assertSame(WorkerThreadIOStrategy.getInstance(), listener.getTransport().getIOStrategy());
+        assertEquals(workers, listener.getTransport().getWorkerThreadPoolConfig().getMaxPoolSize());
+    }
+
+    @Test
+    public void testConfigure() {
+        Map<String, String> settings = new HashMap<>();
+        settings.put("greetings.server.uri", "http://localhost:9090/");
+        settings.put("greetings.server.selectors", "2");
+        settings.put("greetings.server.workers", "64");
+        settings.put("greetings.server.workers.queue", "1000");
+        settings.put("greetings.server.io-strategy", "leader-follower");
+        settings.put("greetings.server.buffer.read", "65536");
+        settings.put("greetings.server.buffer.write", "32768");
+        settings.put("greetings.server.keep-alive.requests", "-1");
+        settings.put("greetings.server.keep-alive.idle", " 10 ");
+        ServerConfig config = ServerConfig.from(settings::get);
+        assertEquals(URI.create("http://localhost:9090/"), config.getBaseUri());
+        NetworkListener listener = listener();
+        config.configure(server(listener), null);
+        TCPNIOTransport transport = listener.getTransport();
+        assertEquals(2, transport.getSelectorRunnersCount());
+        assertEquals(64, transport.getWorkerThreadPoolConfig().getCorePoolSize());
+        assertEquals(64, transport.getWorkerThreadPoolConfig().getMaxPoolSize());
+        assertEquals(1000, transport.getWorkerThreadPoolConfig().getQueueLimit());
+        assertSame(LeaderFollowerNIOStrategy.getInstance(), transport.getIOStrategy());
+        assertEquals(65536, transport.getReadBufferSize());
+        assertEquals(32768, transport.getWriteBufferSize());
+        assertEquals(-1, listener.getKeepAlive().getMaxRequestsCount());
+        assertEquals(10, listener.getKeepAlive().getIdleTimeoutInSeconds());
+    }
+
+    @Test
+    public void testHttp2() throws IOException {
+        Map<String, String> settings = new HashMap<>();
+        settings.put("greetings.server.uri", "http://0.0.0.0:9091/");
+        settings.put("greetings.server.http2", "true");
+        HttpServer server = ServiceExecutor.startServer(ServerConfig.from(settings::get));
+        try {
+            assertEquals(Protocol.H2_PRIOR_KNOWLEDGE, get(Protocol.H2_PRIOR_KNOWLEDGE));
+            assertEquals(Protocol.HTTP_1_1, get(Protocol.HTTP_1_1));
+        } finally {
+            server.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumber() {
+        ServerConfig.from(key -> "greetings.server.workers".equals(key) ? "many" : null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveNumber() {
+        ServerConfig.from(key -> "greetings.server.selectors".equals(key) ? "0" : null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStrategy() {
+        ServerConfig.from(key -> "greetings.server.io-strategy".equals(key) ? "round-robin" : null);
+    }
+
+    private static Protocol get(Protocol protocol) throws IOException {
+        OkHttpClient client = new OkHttpClient.Builder().protocols(Collections.singletonList(protocol)).build();
+        Request request = new Request.Builder()
+                .url("http://localhost:9091/greetings/hallo")
+                .header("Accept", "application/hal+json")
+                .header("Accept-Language", "da")
+                .build();
+        try (Response response = client.newCall(request).execute()) {
+            assertEquals(200, response.code());
+            assertTrue(response.body().string().contains("\"greeting\":\"Hallo!\""));
+            return response.protocol();
+        } finally {
+            client.connectionPool().evictAll();
+        }
+    }
+
+    private static NetworkListener listener() {
+        return new NetworkListener("test", "localhost", 9090);
+    }
+
+    private static HttpServer server(NetworkListener listener) {
+        HttpServer server = new HttpServer();
+        server.addListener(listener);
+        return server;
+    }
+}
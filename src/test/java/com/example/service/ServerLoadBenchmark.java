@@ -0,0 +1,91 @@
+package com.example.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.glassfish.grizzly.http.server.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput and latency of the server handling requests on the worker pool of Grizzly with
+ * handling them on virtual threads, when many consumers are slow at sending their requests.
+ * <p>
+ * Every consumer sends the headers of a {@code PUT}, pauses and then sends the body, thus the thread reading
+ * the body is held while the consumer pauses. Virtual threads require the benchmark to run on Java 21 or later,
+ * on earlier versions both modes use the worker pool of Grizzly.
+ * <p>
+ * Run using: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="ServerLoadBenchmark -f 0"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Threads(200)
+@Fork(1)
+public class ServerLoadBenchmark {
+
+    private static final long PAUSE_MILLIS = 50;
+    private static final byte[] BODY = ("{\"greeting\":\"Hallo!\",\"language\":\"Dansk\",\"country\":\"Danmark\","
+            + "\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},"
+            + "\"_links\":{\"self\":{\"href\":\"greetings/hallo\",\"title\":\"Dansk Hilsen Hallo\"}}}")
+            .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEADERS = ("PUT /greetings/hallo HTTP/1.1\r\n"
+            + "Host: localhost:8080\r\n"
+            + "Accept: application/hal+json\r\n"
+            + "Accept-Language: da\r\n"
+            + "Content-Type: application/json\r\n"
+            + "Content-Length: " + BODY.length + "\r\n"
+            + "Connection: close\r\n\r\n")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private HttpServer server;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("greetings.server.threads", threads);
+        server = ServiceExecutor.startServer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.shutdownNow();
+        System.clearProperty("greetings.server.threads");
+    }
+
+    @Benchmark
+    public String slowConsumer() throws IOException, InterruptedException {
+        try (Socket socket = new Socket("localhost", 8080)) {
+            OutputStream out = socket.getOutputStream();
+            out.write(HEADERS);
+            out.flush();
+            Thread.sleep(PAUSE_MILLIS);
+            out.write(BODY);
+            out.flush();
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            return in.readLine();
+        }
+    }
+}
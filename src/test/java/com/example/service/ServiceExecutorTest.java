@@ -0,0 +1,32 @@
+package com.example.service;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ServiceExecutorTest {
+
+    @Test
+    public void testPlatformWorkers() {
+        assertNull(ServiceExecutor.createWorkers("platform"));
+    }
+
+    @Test
+    public void testVirtualWorkers() {
+        ExecutorService workers = ServiceExecutor.createWorkers("virtual");
+        boolean available = Runtime.class.getPackage().getSpecificationVersion().matches("\\d{2,}")
+                && Integer.parseInt(Runtime.class.getPackage().getSpecificationVersion()) >= 21;
+        assertEquals(available, workers != null);
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownWorkers() {
+        ServiceExecutor.createWorkers("green");
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.service.patch;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import com.example.RepresentationMappers;
+import com.example.resource.greeting.GreetingRepresentation;
+import com.example.service.ServiceExecutor;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares applying a patch using the compiled pointers of {@link JSONPatch} with the former reflective
+ * replacement, which looked up the fields on every patch and changed the greeting in place, thus it was applied
+ * to a copy of the greeting made by writing and reading it.
+ * <p>
+ * Run using: {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="JSONPatchBenchmark -f 0"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JSONPatchBenchmark {
+
+    private static final String GREETING = "{\"greeting\":\"Hallo!\",\"language\":\"Dansk\",\"country\":\"Danmark\","
+            + "\"native\":{\"language\":\"Dansk\",\"country\":\"Danmark\"},"
+            + "\"_links\":{\"self\":{\"href\":\"greetings/hallo\",\"title\":\"Dansk Hilsen Hallo\"}}}";
+
+    @Param({"language", "_links/self/title"})
+    private String path;
+
+    private ObjectReader reader;
+    private ObjectWriter writer;
+    private GreetingRepresentation greeting;
+    private JSONPatch patch;
+
+    @Setup
+    public void setUp() throws IOException {
+        RepresentationMappers mappers = ServiceExecutor.createMappers();
+        reader = mappers.reader(GreetingRepresentation.class);
+        writer = mappers.writer(GreetingRepresentation.class);
+        greeting = reader.readValue(GREETING);
+        patch = JSONPatch.of(new JSONPatchContainer("replace", path, "Patched"));
+    }
+
+    @Benchmark
+    public GreetingRepresentation compiled() {
+        return patch.apply(greeting);
+    }
+
+    @Benchmark
+    public GreetingRepresentation reflectiveInPlace() throws ReflectiveOperationException {
+        replaceValue(greeting.getClass(), greeting, path.split("/"), 0, "Patched");
+        return greeting;
+    }
+
+    @Benchmark
+    public GreetingRepresentation reflectiveOnCopy() throws IOException, ReflectiveOperationException {
+        GreetingRepresentation copy = reader.readValue(writer.writeValueAsBytes(greeting));
+        replaceValue(copy.getClass(), copy, path.split("/"), 0, "Patched");
+        return copy;
+    }
+
+    /**
+     * the replacement formerly done by {@code JSONPatchContainer.replaceValue}
+     */
+    private static boolean replaceValue(Class<?> c, Object o, String[] path, int level, String value) throws ReflectiveOperationException {
+        String[] elements = Arrays.stream(path).filter(e -> !"_links".equals(e) && !e.isEmpty()).toArray(String[]::new);
+        if (level < elements.length) {
+            Field f = c.getDeclaredField(elements[level]);
+            boolean access = f.isAccessible();
+            f.setAccessible(true);
+            if (f.getType().equals(String.class) && level == elements.length - 1) {
+                f.set(o, value);
+                return true;
+            }
+            Object obj = f.get(o);
+            f.setAccessible(access);
+            return replaceValue(f.getType(), obj, elements, level + 1, value);
+        }
+        return false;
+    }
+}
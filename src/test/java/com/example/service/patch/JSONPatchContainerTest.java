@@ -3,12 +3,10 @@ package com.example.service.patch;
 import java.io.IOException;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.example.resource.greeting.GreetingRepresentation;
-import com.example.resource.greeting.GreetingNativeRepresentation;
-import io.openapitools.jackson.dataformat.hal.HALLink;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -30,27 +28,21 @@ public class JSONPatchContainerTest {
     }
        
     @Test
-    public void testReplaceValueinGreeting() throws ClassNotFoundException, IllegalArgumentException, IllegalAccessException, NoSuchFieldException {
-        HALLink self = new HALLink.Builder("/greetings/hej").title("Greeting Hej").build();
-        GreetingRepresentation gr = new GreetingRepresentation("Hej!", "Dansk", "Danmark", new GreetingNativeRepresentation("Danish", "Denmark"), self);
-        JSONPatchContainer jc = new JSONPatchContainer("replace", "language", "volapyk");  
-        boolean set = jc.replaceValue(gr);
-        assertTrue(set);
-        assertEquals(gr.getLanguage(), "volapyk");
-        
-        gr = new GreetingRepresentation("Hej!", "Dansk", "Danmark", new GreetingNativeRepresentation("Danish", "Denmark"), self);
-        jc = new JSONPatchContainer("replace", "/language", "polavyk");  
-        set = jc.replaceValue(gr);
-        assertTrue(set);
-        assertEquals(gr.getLanguage(), "polavyk");  
-
-        jc = new JSONPatchContainer("replace", "_links/self/href", "/links-self-href");  
-        set = jc.replaceValue(gr);
-        assertTrue(set);
-        assertEquals(gr.getSelf().getHref(), "/links-self-href");  
-
-        jc = new JSONPatchContainer("replace", "_links/self", "/notSelf");  
-        set = jc.replaceValue(gr);
-        assertTrue(!set);
+    public void testJsonValues() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JSONPatchContainer jc = mapper.readValue("{\"op\":\"add\",\"path\":\"/native\",\"value\":{\"language\":\"Dansk\"}}",
+                JSONPatchContainer.class);
+        assertEquals("add", jc.getOperation());
+        assertEquals("{\"language\":\"Dansk\"}", jc.getValue());
+        assertEquals("Dansk", jc.getJsonValue().get("language").textValue());
+        assertNull(jc.getFrom());
+        assertEquals("{\"op\":\"add\",\"path\":\"/native\",\"value\":{\"language\":\"Dansk\"}}", jc.toString());
+
+        jc = mapper.readValue("{\"op\":\"move\",\"from\":\"/language\",\"path\":\"/native/language\"}", JSONPatchContainer.class);
+        assertEquals("/language", jc.getFrom());
+        assertNull(jc.getJsonValue());
+
+        jc = mapper.readValue("{\"op\":\"add\",\"path\":\"/language\",\"value\":null}", JSONPatchContainer.class);
+        assertTrue(jc.getJsonValue().isNull());
     }
 }
@@ -0,0 +1,104 @@
+package com.example.service.patch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONPatchReaderTest {
+
+    private static final MediaType PATCH = new MediaType("application", "patch+json");
+
+    private final JSONPatchReader reader = new JSONPatchReader(new ObjectMapper().readerFor(JSONPatchContainer.class), 256);
+
+    @Test
+    public void testIsReadable() {
+        assertTrue(reader.isReadable(JSONPatch.class, JSONPatch.class, null, PATCH));
+        assertFalse(reader.isReadable(String.class, String.class, null, PATCH));
+        assertFalse(reader.isReadable(JSONPatchContainer.class, JSONPatchContainer.class, null, PATCH));
+    }
+
+    @Test
+    public void testReadOperation() throws IOException {
+        JSONPatch patch = read("{\n\"op\":\"replace\",\n\"path\":\"/language\"\n,\"value\":\"German\"\n}", null);
+        assertEquals(1, patch.getOperations().size());
+        assertEquals("{\"op\":\"replace\",\"path\":\"/language\",\"value\":\"German\"}", patch.getOperations().get(0).toString());
+    }
+
+    @Test
+    public void testReadOperations() throws IOException {
+        String input = "[{\"op\":\"test\",\"path\":\"/language\",\"value\":\"Dansk\"},"
+                + "{\"op\":\"move\",\"path\":\"/country\",\"from\":\"/native/country\"},"
+                + "{\"op\":\"add\",\"path\":\"/native\",\"value\":{\"language\":\"Dansk\"}}]";
+        JSONPatch patch = read(input, null);
+        assertEquals(3, patch.getOperations().size());
+        assertEquals("test", patch.getOperations().get(0).getOperation());
+        assertEquals("/native/country", patch.getOperations().get(1).getFrom());
+        assertEquals("Dansk", patch.getOperations().get(2).getJsonValue().get("language").textValue());
+        assertTrue(read("[]", null).getOperations().isEmpty());
+    }
+
+    @Test
+    public void testReadLeavesStreamOpen() throws IOException {
+        boolean[] closed = {false};
+        InputStream in = new ByteArrayInputStream("{\"op\":\"remove\",\"path\":\"/native\"}".getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        reader.readFrom(JSONPatch.class, JSONPatch.class, null, PATCH, new MultivaluedHashMap<>(), in);
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    public void testReadNonPatch() throws IOException {
+        assertStatus(400, "\"op\":\"replace\",\"path\":\"/language\",\"value\":\"German\"", null);
+        assertStatus(400, "{\"operation\":\"replace\",\"path\":\"/language\",\"value\":\"German\"}", null);
+        assertStatus(400, "{\"op\":\"replace\",\"path\":\"/language\",\"value\":\"German\"} {}", null);
+        assertStatus(400, "", null);
+    }
+
+    @Test
+    public void testReadTooLarge() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            value.append('x');
+        }
+        String input = "{\"op\":\"replace\",\"path\":\"/language\",\"value\":\"" + value + "\"}";
+        assertStatus(413, input, null);
+        assertStatus(413, "{}", "257");
+        assertEquals(1, read("{\"op\":\"remove\",\"path\":\"/native\"}", "256").getOperations().size());
+    }
+
+    private JSONPatch read(String input, String length) throws IOException {
+        MultivaluedMap<String, String> headers = new MultivaluedHashMap<>();
+        if (length != null) {
+            headers.putSingle("Content-Length", length);
+        }
+        return reader.readFrom(JSONPatch.class, JSONPatch.class, null, PATCH, headers,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void assertStatus(int status, String input, String length) throws IOException {
+        try {
+            read(input, length);
+            fail("should not read " + input);
+        } catch (WebApplicationException e) {
+            assertEquals(status, e.getResponse().getStatus());
+        }
+    }
+}
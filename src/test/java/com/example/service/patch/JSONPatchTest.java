@@ -0,0 +1,141 @@
+package com.example.service.patch;
+
+import com.example.resource.greeting.GreetingNativeRepresentation;
+import com.example.resource.greeting.GreetingRepresentation;
+import com.example.service.ServiceExecutor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.openapitools.jackson.dataformat.hal.HALLink;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONPatchTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static GreetingRepresentation greeting() {
+        HALLink self = new HALLink.Builder("/greetings/hej").title("Greeting Hej").build();
+        return new GreetingRepresentation("Hej!", "Dansk", "Danmark", new GreetingNativeRepresentation("Danish", "Denmark"), self);
+    }
+
+    @Test
+    public void testReplace() {
+        GreetingRepresentation gr = greeting();
+        GreetingRepresentation patched = JSONPatch.of(new JSONPatchContainer("replace", "language", "volapyk")).apply(gr);
+        assertEquals("volapyk", patched.getLanguage());
+        assertEquals("Dansk", gr.getLanguage());
+        assertSame(gr.getNative(), patched.getNative());
+        assertSame(gr.getSelf(), patched.getSelf());
+
+        patched = JSONPatch.of(new JSONPatchContainer("replace", "/language", "polavyk"),
+                new JSONPatchContainer("replace", "/_links/self/href", "/links-self-href"),
+                new JSONPatchContainer("replace", "_links/self/title", "Hilsen Hej")).apply(gr);
+        assertEquals("polavyk", patched.getLanguage());
+        assertEquals("/links-self-href", patched.getSelf().getHref());
+        assertEquals("Hilsen Hej", patched.getSelf().getTitle());
+        assertEquals("/greetings/hej", gr.getSelf().getHref());
+        assertEquals("Greeting Hej", gr.getSelf().getTitle());
+        assertSame(gr.getNative(), patched.getNative());
+
+        patched = JSONPatch.of(new JSONPatchContainer("replace", "/_links/self/templated", null, BooleanNode.FALSE)).apply(gr);
+        assertEquals(Boolean.FALSE, patched.getSelf().getTemplated());
+    }
+
+    @Test
+    public void testAddAndRemove() throws Exception {
+        GreetingRepresentation gr = greeting();
+        GreetingRepresentation patched = JSONPatch.of(new JSONPatchContainer("remove", "/native/country", null, null)).apply(gr);
+        assertNull(patched.getNative().getCountry());
+        assertEquals("Denmark", gr.getNative().getCountry());
+
+        patched = JSONPatch.of(new JSONPatchContainer("remove", "/native", null, null),
+                new JSONPatchContainer("add", "/native", null, MAPPER.readTree("{\"language\":\"Svenska\",\"country\":\"Sverige\"}")),
+                new JSONPatchContainer("add", "/_links/self/name", "Hej")).apply(gr);
+        assertEquals(new GreetingNativeRepresentation("Svenska", "Sverige"), patched.getNative());
+        assertEquals("Hej", patched.getSelf().getName());
+        assertNull(gr.getSelf().getName());
+
+        assertFails("/_links/self/name does not exist", new JSONPatchContainer("remove", "/_links/self/name", null, null));
+        assertFails("/native/language does not exist", new JSONPatchContainer("remove", "/native", null, null),
+                new JSONPatchContainer("add", "/native/language", "Svenska"));
+        assertFails("the document cannot be removed", new JSONPatchContainer("remove", "", null, null));
+    }
+
+    @Test
+    public void testMoveAndCopy() {
+        GreetingRepresentation gr = greeting();
+        GreetingRepresentation patched = JSONPatch.of(new JSONPatchContainer("copy", "/native/language", "/language", null),
+                new JSONPatchContainer("move", "/native/country", "/country", null)).apply(gr);
+        assertEquals("Dansk", patched.getNative().getLanguage());
+        assertEquals("Danmark", patched.getNative().getCountry());
+        assertEquals("Dansk", patched.getLanguage());
+        assertNull(patched.getCountry());
+        assertEquals(new GreetingNativeRepresentation("Danish", "Denmark"), gr.getNative());
+
+        assertFails("/native cannot be moved to /native/language", new JSONPatchContainer("move", "/native/language", "/native", null));
+        assertFails("from is missing", new JSONPatchContainer("copy", "/language", null, null));
+        assertFails("value could not be converted to /native", new JSONPatchContainer("copy", "/native", "/_links/self", null));
+    }
+
+    @Test
+    public void testTest() {
+        GreetingRepresentation gr = greeting();
+        assertSame(gr, JSONPatch.of(new JSONPatchContainer("test", "/language", "Dansk")).apply(gr));
+        GreetingRepresentation patched = JSONPatch.of(new JSONPatchContainer("test", "/language", "Dansk"),
+                new JSONPatchContainer("replace", "/language", "Svenska"),
+                new JSONPatchContainer("test", "/language", "Svenska")).apply(gr);
+        assertEquals("Svenska", patched.getLanguage());
+        assertFails("test of /language failed", new JSONPatchContainer("replace", "/language", "Svenska"),
+                new JSONPatchContainer("test", "/language", "Dansk"));
+        assertFails("/_links/self/name does not exist", new JSONPatchContainer("test", "/_links/self/name", "Hej"));
+    }
+
+    @Test
+    public void testWholeDocumentInRepresentationForm() throws Exception {
+        GreetingRepresentation gr = greeting();
+        JsonNode sent = MAPPER.readTree(ServiceExecutor.createMappers().writer(GreetingRepresentation.class).writeValueAsBytes(gr));
+        assertSame(gr, JSONPatch.of(new JSONPatchContainer("test", "", null, sent)).apply(gr));
+        assertSame(gr, JSONPatch.of(new JSONPatchContainer("test", "/_links/self", null, sent.at("/_links/self"))).apply(gr));
+
+        ((ObjectNode) sent).put("greeting", "Hejsa!");
+        ((ObjectNode) sent.at("/_links/self")).put("title", "Greeting Hejsa");
+        GreetingRepresentation patched = JSONPatch.of(new JSONPatchContainer("replace", "", null, sent)).apply(gr);
+        assertEquals("Hejsa!", patched.getGreeting());
+        assertEquals("Greeting Hejsa", patched.getSelf().getTitle());
+        assertEquals("Greeting Hej", gr.getSelf().getTitle());
+        assertFails("test of  failed", new JSONPatchContainer("test", "", null, sent));
+    }
+
+    @Test
+    public void testInvalidOperations() {
+        assertFails("op someotherop is not supported, the operations are add, remove, replace, move, copy and test",
+                new JSONPatchContainer("someotherop", "language", "x"));
+        assertFails("/nonexisting does not exist", new JSONPatchContainer("replace", "nonexisting", "x"));
+        assertFails("/language/nonexisting does not exist", new JSONPatchContainer("replace", "language/nonexisting", "x"));
+        assertFails("/_links does not exist", new JSONPatchContainer("replace", "/_links", "x"));
+        assertFails("value could not be converted to /_links/self", new JSONPatchContainer("replace", "_links/self", "/notSelf"));
+        assertFails("value is missing", new JSONPatchContainer("add", "/language", null, null));
+        assertFails("path is missing", new JSONPatchContainer("add", null, null, TextNode.valueOf("x")));
+    }
+
+    private static void assertFails(String message, JSONPatchContainer... operations) {
+        GreetingRepresentation gr = greeting();
+        String before = gr.toString();
+        try {
+            JSONPatch.of(operations).apply(gr);
+            fail("should not apply " + message);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+        }
+        assertEquals(before, gr.toString());
+        assertTrue(gr.getSelf().getName() == null);
+    }
+}